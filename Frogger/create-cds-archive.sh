@@ -0,0 +1,15 @@
+#!/bin/sh
+# Creates an AppCDS archive of the classes loaded while starting Frogger, so cold boots on
+# cabinets skip most class loading and verification. Run after building the project.
+#
+# Usage: ./create-cds-archive.sh [classes directory]
+# Then start the game with: java -XX:SharedArchiveFile=frogger.jsa -cp frogger.jar Game
+set -e
+cd "$(dirname "$0")"
+CLASSES=${1:-out/production/Frogger}
+
+# CDS only archives classes loaded from jar files.
+jar cf frogger.jar -C "$CLASSES" .
+# StartupBenchmark starts the game and exits once it is interactive, which makes it the training run.
+java -XX:ArchiveClassesAtExit=frogger.jsa -cp frogger.jar StartupBenchmark
+echo "Created frogger.jsa. Start with: java -XX:SharedArchiveFile=frogger.jsa -cp frogger.jar Game"
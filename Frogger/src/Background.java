@@ -86,6 +86,16 @@ public class Background {
         }
     }
 
+    /**
+     * Gets a background to draw that will not change while the game continues.
+     * The default background never changes, so it is returned as it is.
+     *
+     * @return A background that can be drawn from any thread.
+     */
+    public Background snapshot() {
+        return this;
+    }
+
     /**
      * Gets a reference to the water region.
      *
@@ -95,6 +105,16 @@ public class Background {
         return waterZone;
     }
 
+    /**
+     * Tests if a frog at the y coordinate would be in the water.
+     *
+     * @param y The top of the frog.
+     * @return True if the y coordinate is inside the water area.
+     */
+    public boolean isWater(int y) {
+        return y >= waterZone.position.y && y <= waterZone.position.y + waterZone.height - 5;
+    }
+
     /**
      * Gets the end zone region.
      *
@@ -0,0 +1,183 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * BandRenderer class:
+ * Draws snapshots for the GamePanel, splitting frames with many objects into horizontal bands
+ * along the lane rows: the water band from the end zone down to the middle zone, the road band
+ * from there down to the score zone, and the HUD band below it. The water and road bands are drawn
+ * on worker threads of a ForkJoinPool while the painting thread draws the HUD band, each into its
+ * own image, and the images are then copied into the frame in order. Each band only draws the
+ * objects near its rows, so the per-object work is divided between the threads.
+ *
+ * The band images are drawn at the scale of the Graphics they are copied into, such as the 2x
+ * scale of a HiDPI screen, and copied pixel for pixel. A Graphics that is rotated, sheared, or
+ * scaled so a band edge falls between device pixels is drawn directly instead.
+ *
+ * Frames with fewer than PARALLEL_OBJECT_THRESHOLD objects, or with only one worker thread,
+ * are drawn directly, since handing off the work costs more than drawing them.
+ */
+public class BandRenderer {
+    /**
+     * Minimum number of moving objects in a snapshot before it is drawn in bands across threads.
+     */
+    public static final int PARALLEL_OBJECT_THRESHOLD = 256;
+
+    /**
+     * The pool the water and road bands are drawn on.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Y coordinate of the top of each band, followed by the bottom of the panel.
+     */
+    private final int[] bandEdges;
+    /**
+     * The image each band is drawn into, reused every frame while the scale stays the same.
+     */
+    private final BufferedImage[] bandImages;
+    /**
+     * Horizontal scale the band images were created for.
+     */
+    private double imageScaleX;
+    /**
+     * Vertical scale the band images were created for.
+     */
+    private double imageScaleY;
+
+    /**
+     * Creates a renderer that draws bands on the common pool.
+     *
+     * @param background The background of the world being drawn, used to find the edges of the bands.
+     */
+    public BandRenderer(Background background) {
+        this(background, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a renderer that draws bands on the specified pool.
+     *
+     * @param background The background of the world being drawn, used to find the edges of the bands.
+     * @param pool The pool to draw the water and road bands on.
+     */
+    public BandRenderer(Background background, ForkJoinPool pool) {
+        this.pool = pool;
+        Rectangle waterZone = background.getWaterZone();
+        bandEdges = new int[] { 0, waterZone.position.y + waterZone.height,
+                background.getScoreZone().position.y, GamePanel.PANEL_HEIGHT };
+        bandImages = new BufferedImage[bandEdges.length - 1];
+    }
+
+    /**
+     * Draws a snapshot, in bands across threads when it has enough objects and the bands line up
+     * with the device pixels of g, and otherwise directly. Must only be called from one thread at
+     * a time, as the band images are reused.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     * @param snapshot The snapshot to draw.
+     * @param hud Draws the lives and score. Only used by the calling thread.
+     */
+    public void paint(Graphics g, RenderSnapshot snapshot, Hud hud) {
+        if(snapshot.getObjectCount() < PARALLEL_OBJECT_THRESHOLD || pool.getParallelism() < 2
+                || !(g instanceof Graphics2D) || !isAligned(((Graphics2D)g).getTransform())) {
+            snapshot.paint(g, hud);
+            return;
+        }
+        Graphics2D target = (Graphics2D)g;
+        AffineTransform transform = target.getTransform();
+        createImages(transform.getScaleX(), transform.getScaleY());
+        RenderingHints hints = (RenderingHints)target.getRenderingHints().clone();
+        Font font = target.getFont();
+        int hudBand = bandImages.length - 1;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[hudBand];
+        for(int band = 0; band < hudBand; band++) {
+            int bandIndex = band;
+            tasks[band] = pool.submit(() -> paintBand(bandIndex, snapshot, null, hints, font));
+        }
+        paintBand(hudBand, snapshot, hud, hints, font);
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        Graphics2D device = (Graphics2D)target.create();
+        device.setTransform(AffineTransform.getTranslateInstance(transform.getTranslateX(), transform.getTranslateY()));
+        for(int band = 0; band < bandImages.length; band++) {
+            device.drawImage(bandImages[band], 0, (int)Math.rint(bandEdges[band] * imageScaleY), null);
+        }
+        device.dispose();
+    }
+
+    /**
+     * Checks a transform only scales and moves by whole device pixels, and puts every band edge
+     * on a whole device pixel, so the band images can be copied without resampling.
+     *
+     * @param transform The transform of the Graphics being drawn to.
+     * @return True if the bands can be drawn at the transform's scale and copied pixel for pixel.
+     */
+    private boolean isAligned(AffineTransform transform) {
+        int unaligned = AffineTransform.TYPE_FLIP | AffineTransform.TYPE_MASK_ROTATION
+                | AffineTransform.TYPE_GENERAL_TRANSFORM;
+        if((transform.getType() & unaligned) != 0 || !isWhole(transform.getTranslateX())
+                || !isWhole(transform.getTranslateY())) {
+            return false;
+        }
+        for(int edge : bandEdges) {
+            if(!isWhole(edge * transform.getScaleY())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a value is a whole number.
+     *
+     * @param value The value to check.
+     * @return True if the value has no fractional part.
+     */
+    private static boolean isWhole(double value) {
+        return value == Math.rint(value);
+    }
+
+    /**
+     * Creates the band images in device pixels for a scale, unless they already exist for it.
+     *
+     * @param scaleX Horizontal scale of the Graphics being drawn to.
+     * @param scaleY Vertical scale of the Graphics being drawn to.
+     */
+    private void createImages(double scaleX, double scaleY) {
+        if(bandImages[0] != null && scaleX == imageScaleX && scaleY == imageScaleY) {
+            return;
+        }
+        int width = (int)Math.ceil(GamePanel.PANEL_WIDTH * scaleX);
+        for(int band = 0; band < bandImages.length; band++) {
+            int height = (int)Math.rint((bandEdges[band + 1] - bandEdges[band]) * scaleY);
+            bandImages[band] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        imageScaleX = scaleX;
+        imageScaleY = scaleY;
+    }
+
+    /**
+     * Draws one band of a snapshot into its image.
+     *
+     * @param band Index of the band.
+     * @param snapshot The snapshot to draw.
+     * @param hud Draws the lives and score, or null for the bands that do not show them.
+     * @param hints The rendering hints of the Graphics the frame is drawn to.
+     * @param font The font of the Graphics the frame is drawn to.
+     */
+    private void paintBand(int band, RenderSnapshot snapshot, Hud hud, RenderingHints hints, Font font) {
+        Graphics2D g = bandImages[band].createGraphics();
+        g.setRenderingHints(hints);
+        g.setFont(font);
+        g.scale(imageScaleX, imageScaleY);
+        g.translate(0, -bandEdges[band]);
+        snapshot.paintBand(g, bandEdges[band], bandEdges[band + 1], hud);
+        g.dispose();
+    }
+}
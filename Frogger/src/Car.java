@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.util.Random;
 
 /**
  * Frogger
@@ -13,32 +14,24 @@ public class Car extends MovingObject {
      * All the colours that the cars can appear as.
      */
     private static final Color[] CAR_COLOURS = { Color.CYAN, new Color(27, 57, 167), Color.RED, Color.ORANGE, Color.YELLOW, Color.GREEN };
-    /**
-     * Distance moves during each update in pixels.
-     */
-    private static final int MOVE_DISTANCE = 3;
-    /**
-     * Time in ms between movements.
-     */
-    private static final int MOVE_DELAY = 40;
     /**
      * Number of segments. Used to determine the visual length.
      */
     private int unitWidth;
 
     /**
-     * Initialises a car to move in the defined direction.
+     * Initialises a car to move in the direction defined by its lane.
      *
+     * @param lanes The level the car's lane is defined in.
+     * @param lane Index of the lane that defines the row, direction, speed, and widths.
      * @param offsetX Position to offset the X coordinate from default spawning.
-     * @param yRow The row to set as a vertical position.
      * @param unitWidth Number of segments. Used to determine the length.
-     * @param isMovingLeft When true the car will move left, otherwise it will move right.
+     * @param random Random source used for the colour and any future resets.
      */
-    public Car(int offsetX, int yRow, int unitWidth, boolean isMovingLeft) {
-        super(new Position(offsetX+(isMovingLeft?1:-1)*unitWidth*GamePanel.SEGMENT_HEIGHT,
-                        yRow*GamePanel.SEGMENT_HEIGHT+(GamePanel.SEGMENT_HEIGHT-MovingObject.OBJECT_HEIGHT)/2),
-                unitWidth * GamePanel.SEGMENT_HEIGHT, CAR_COLOURS[(int)(Math.random()*CAR_COLOURS.length)],
-                isMovingLeft, MOVE_DISTANCE, MOVE_DELAY);
+    public Car(LaneTable lanes, int lane, int offsetX, int unitWidth, Random random) {
+        super(lanes, lane, new Position(offsetX+(lanes.isMovingLeft(lane)?1:-1)*unitWidth*GamePanel.SEGMENT_HEIGHT,
+                        lanes.getRow(lane)*GamePanel.SEGMENT_HEIGHT+(GamePanel.SEGMENT_HEIGHT-MovingObject.OBJECT_HEIGHT)/2),
+                unitWidth * GamePanel.SEGMENT_HEIGHT, CAR_COLOURS[random.nextInt(CAR_COLOURS.length)], random);
         this.unitWidth = unitWidth;
     }
 
@@ -78,28 +71,9 @@ public class Car extends MovingObject {
     @Override
     public void reset() {
         super.reset();
-        unitWidth = getRandomSegmentLength();
+        unitWidth = lanes.getRandomWidth(lane, random);
         width = unitWidth * GamePanel.SEGMENT_HEIGHT;
-        position.x = moveDirection.equals(Position.RIGHT) ? -(getMaxLength() * GamePanel.SEGMENT_HEIGHT)
-                :(GamePanel.PANEL_WIDTH/GamePanel.SEGMENT_HEIGHT+1)*(GamePanel.SEGMENT_HEIGHT);
-        drawColour = CAR_COLOURS[(int)(Math.random()*CAR_COLOURS.length)];
-    }
-
-    /**
-     * Gets a valid random number of segments for a car.
-     *
-     * @return A random number between 2 and 3.
-     */
-    public static int getRandomSegmentLength() {
-        return (int)(Math.random()*2)+2;
-    }
-
-    /**
-     * Gets the maximum number of segments.
-     *
-     * @return The maximum length of a car.
-     */
-    public static int getMaxLength() {
-        return 3;
+        position.x = getResetPositionX();
+        drawColour = CAR_COLOURS[random.nextInt(CAR_COLOURS.length)];
     }
 }
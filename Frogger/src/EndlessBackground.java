@@ -0,0 +1,120 @@
+import java.awt.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * EndlessBackground class:
+ * The background for endless mode. Each lane row is drawn as grass, road, or water depending
+ * on the lane currently in the LaneRing for that row. There are no lilies.
+ */
+public class EndlessBackground extends Background {
+    /**
+     * Colour of the safe grass rows.
+     */
+    private static final Color GRASS_COLOUR = new Color(108, 186, 88);
+
+    /**
+     * The lanes that decide the terrain of each row, or null for a snapshot.
+     */
+    private final LaneRing laneRing;
+    /**
+     * The terrain of every row from 0 to the spawn row when not drawn from the LaneRing, otherwise null.
+     */
+    private final int[] rowTerrain;
+
+    /**
+     * Creates the background for the lanes in the ring.
+     *
+     * @param laneRing The lanes that decide the terrain of each row.
+     */
+    public EndlessBackground(LaneRing laneRing) {
+        this.laneRing = laneRing;
+        rowTerrain = null;
+    }
+
+    /**
+     * Creates a background that draws the terrain of each row from an array, used for snapshots
+     * and for backgrounds that fill in the terrain themselves.
+     *
+     * @param rowTerrain The terrain of every row from 0 to the spawn row. Read every time it is used.
+     */
+    protected EndlessBackground(int[] rowTerrain) {
+        laneRing = null;
+        this.rowTerrain = rowTerrain;
+    }
+
+    /**
+     * Copies the terrain of every row, so the copy can be drawn while the lanes keep scrolling.
+     *
+     * @return A background with the current terrain that will not change.
+     */
+    @Override
+    public Background snapshot() {
+        int[] terrain = new int[Player.SPAWN_ROW + 1];
+        for(int row = 0; row < terrain.length; row++) {
+            terrain[row] = getTerrain(row);
+        }
+        return new EndlessBackground(terrain);
+    }
+
+    /**
+     * Draws every row based on its terrain, followed by the start row and score area.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     */
+    @Override
+    public void paint(Graphics g) {
+        for(int row = 0; row <= Player.SPAWN_ROW; row++) {
+            int terrain = getTerrain(row);
+            int y = row * GamePanel.SEGMENT_HEIGHT;
+            g.setColor(terrain == LaneRing.WATER ? Color.CYAN : terrain == LaneRing.ROAD ? Color.BLACK : GRASS_COLOUR);
+            g.fillRect(0, y, GamePanel.PANEL_WIDTH, GamePanel.SEGMENT_HEIGHT);
+            if(terrain == LaneRing.ROAD && getTerrain(row - 1) == LaneRing.ROAD) {
+                g.setColor(Color.WHITE);
+                for(int x = 0; x < GamePanel.PANEL_WIDTH; x+= 20) {
+                    g.fillRect(x,y,10,4);
+                }
+            }
+        }
+        Rectangle scoreZone = getScoreZone();
+        g.setColor(Color.BLACK);
+        g.fillRect(scoreZone.position.x, scoreZone.position.y, scoreZone.width, scoreZone.height);
+    }
+
+    /**
+     * Tests if a frog at the y coordinate would be in a water row.
+     *
+     * @param y The top of the frog.
+     * @return True if the row at the y coordinate is water.
+     */
+    @Override
+    public boolean isWater(int y) {
+        return getTerrain(y / GamePanel.SEGMENT_HEIGHT) == LaneRing.WATER;
+    }
+
+    /**
+     * Gets the terrain of a row from the lanes, or from the copied terrain of a snapshot.
+     *
+     * @param row The row on screen.
+     * @return One of LaneRing.GRASS, ROAD, or WATER.
+     */
+    private int getTerrain(int row) {
+        if(rowTerrain == null) {
+            return laneRing.getTerrain(row);
+        }
+        return row >= 0 && row < rowTerrain.length ? rowTerrain[row] : LaneRing.GRASS;
+    }
+
+    /**
+     * There are no lilies in endless mode.
+     *
+     * @return An empty list.
+     */
+    @Override
+    public List<Rectangle> getLilies() {
+        return Collections.emptyList();
+    }
+}
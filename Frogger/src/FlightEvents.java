@@ -0,0 +1,260 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * FlightEvents class:
+ * The Java Flight Recorder event types emitted by the game, so a recording from a cabinet shows
+ * ticks, collision queries, deaths, scores, obstacle resets, and paints next to the GC and OS
+ * activity of the same moment. None are recorded unless enabled in a recording, for example with
+ * -XX:StartFlightRecording:settings=profile or a .jfc enabling the Frogger category. Each emit
+ * site checks the event's cached EventType first and only creates the event while it is enabled,
+ * so nothing is allocated while no recording wants it.
+ *
+ * None of the events record stack traces, since the sites they come from are always the same.
+ */
+public class FlightEvents {
+    /**
+     * Type of each event, so the emit sites can check whether it is enabled before creating an
+     * event object. The events are only allocated while recording.
+     */
+    private static final EventType TICK_TYPE = EventType.getEventType(Tick.class),
+            COLLISION_QUERY_TYPE = EventType.getEventType(CollisionQuery.class),
+            FROG_DEATH_TYPE = EventType.getEventType(FrogDeath.class),
+            FROG_SCORED_TYPE = EventType.getEventType(FrogScored.class),
+            OBSTACLE_RESET_TYPE = EventType.getEventType(ObstacleReset.class),
+            PAINT_TYPE = EventType.getEventType(Paint.class);
+
+    /**
+     * Checks if ticks are being recorded.
+     *
+     * @return True if the Tick event is enabled in any recording.
+     */
+    public static boolean isTickEnabled() {
+        return TICK_TYPE.isEnabled();
+    }
+
+    /**
+     * Checks if collision queries are being recorded.
+     *
+     * @return True if the CollisionQuery event is enabled in any recording.
+     */
+    public static boolean isCollisionQueryEnabled() {
+        return COLLISION_QUERY_TYPE.isEnabled();
+    }
+
+    /**
+     * Checks if frog deaths are being recorded.
+     *
+     * @return True if the FrogDeath event is enabled in any recording.
+     */
+    public static boolean isFrogDeathEnabled() {
+        return FROG_DEATH_TYPE.isEnabled();
+    }
+
+    /**
+     * Checks if frogs reaching a lily are being recorded.
+     *
+     * @return True if the FrogScored event is enabled in any recording.
+     */
+    public static boolean isFrogScoredEnabled() {
+        return FROG_SCORED_TYPE.isEnabled();
+    }
+
+    /**
+     * Checks if obstacle resets are being recorded, so the objects only need to be searched for
+     * resets when they are.
+     *
+     * @return True if the ObstacleReset event is enabled in any recording.
+     */
+    public static boolean isObstacleResetEnabled() {
+        return OBSTACLE_RESET_TYPE.isEnabled();
+    }
+
+    /**
+     * Checks if paints are being recorded.
+     *
+     * @return True if the Paint event is enabled in any recording.
+     */
+    public static boolean isPaintEnabled() {
+        return PAINT_TYPE.isEnabled();
+    }
+
+    /**
+     * The steps of one World.tick(), with how long each phase took.
+     */
+    @Name("frogger.Tick")
+    @Label("Tick")
+    @Category("Frogger")
+    @Description("One step of the game world, with the duration of each phase")
+    @StackTrace(false)
+    public static class Tick extends Event {
+        /**
+         * Number of the tick since the world was created.
+         */
+        @Label("Tick Number")
+        public long tickNumber;
+        /**
+         * Time spent applying queued input.
+         */
+        @Label("Input")
+        @Timespan(Timespan.NANOSECONDS)
+        public long inputNanos;
+        /**
+         * Time spent in Player.update().
+         */
+        @Label("Player Update")
+        @Timespan(Timespan.NANOSECONDS)
+        public long playerUpdateNanos;
+        /**
+         * Time spent updating the lanes of moving objects.
+         */
+        @Label("Lane Update")
+        @Timespan(Timespan.NANOSECONDS)
+        public long laneUpdateNanos;
+        /**
+         * Time spent in Player.postUpdate() and anything after it.
+         */
+        @Label("Post Update")
+        @Timespan(Timespan.NANOSECONDS)
+        public long postUpdateNanos;
+        /**
+         * Number of moving objects in the world.
+         */
+        @Label("Object Count")
+        public int objectCount;
+    }
+
+    /**
+     * A search of the moving objects for one the frog overlaps.
+     */
+    @Name("frogger.CollisionQuery")
+    @Label("Collision Query")
+    @Category("Frogger")
+    @Description("A search of the moving objects for one overlapping the frog")
+    @StackTrace(false)
+    public static class CollisionQuery extends Event {
+        /**
+         * Percent of overlap the query needed.
+         */
+        @Label("Minimum Percent")
+        public double minimumPercent;
+        /**
+         * Number of objects tested before the search finished.
+         */
+        @Label("Objects Scanned")
+        public int objectsScanned;
+        /**
+         * True if an object was found.
+         */
+        @Label("Hit")
+        public boolean hit;
+    }
+
+    /**
+     * A frog that died.
+     */
+    @Name("frogger.FrogDeath")
+    @Label("Frog Death")
+    @Category("Frogger")
+    @Description("A frog died")
+    @StackTrace(false)
+    public static class FrogDeath extends Event {
+        /**
+         * Name of the GameEventListener.DeathCause.
+         */
+        @Label("Cause")
+        public String cause;
+        /**
+         * Where the frog died.
+         */
+        @Label("X")
+        public int x;
+        /**
+         * Row the frog died on.
+         */
+        @Label("Row")
+        public int row;
+        /**
+         * Score at the time.
+         */
+        @Label("Score")
+        public int score;
+    }
+
+    /**
+     * A frog that landed on a lily.
+     */
+    @Name("frogger.FrogScored")
+    @Label("Frog Scored")
+    @Category("Frogger")
+    @Description("A frog landed on a lily")
+    @StackTrace(false)
+    public static class FrogScored extends Event {
+        /**
+         * Where the frog landed.
+         */
+        @Label("X")
+        public int x;
+        /**
+         * Score after landing.
+         */
+        @Label("Score")
+        public int score;
+    }
+
+    /**
+     * A moving object that went off screen and was reset.
+     */
+    @Name("frogger.ObstacleReset")
+    @Label("Obstacle Reset")
+    @Category("Frogger")
+    @Description("A moving object went off screen and was reset with a new width")
+    @StackTrace(false)
+    public static class ObstacleReset extends Event {
+        /**
+         * Index of the object in the world's object list.
+         */
+        @Label("Object Index")
+        public int objectIndex;
+        /**
+         * Lane the object belongs to.
+         */
+        @Label("Lane")
+        public int lane;
+        /**
+         * New width of the object in pixels.
+         */
+        @Label("Width")
+        public int width;
+    }
+
+    /**
+     * One paint of the GamePanel.
+     */
+    @Name("frogger.Paint")
+    @Label("Paint")
+    @Category("Frogger")
+    @Description("The GamePanel painted a snapshot")
+    @StackTrace(false)
+    public static class Paint extends Event {
+        /**
+         * Tick of the snapshot painted.
+         */
+        @Label("Snapshot Tick")
+        public long snapshotTick;
+        /**
+         * Frames skipped since the panel was created.
+         */
+        @Label("Skipped Frames")
+        public long skippedFrames;
+    }
+}
@@ -0,0 +1,327 @@
+import java.awt.event.KeyEvent;
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * FroggerEnv class:
+ * A reinforcement learning environment over a headless World with the usual reset(seed) and
+ * step(action) interface. Each action maps to the inputs a player would give and each step runs a
+ * fixed number of ticks, then reports the reward, whether the episode is done, and an observation.
+ *
+ * The reward is the score gained during the step less a penalty for each frog that died. An
+ * episode is done when the game ends, or when it reaches the step limit if one is set. The
+ * observation is a fixed length array of floats: the frog's position and the lives left, followed
+ * by the position, width, velocity and safety of each moving object, scaled to roughly -1 to 1
+ * and padded with zeros after the last object.
+ *
+ * Stepping into a caller-provided observation array allocates nothing, so many environments can
+ * be stepped in a tight loop, see VectorFroggerEnv. Only reset() allocates, for the new World.
+ * Agents that want the board as a grid of cells can also read getOccupancyGrid(), which is kept
+ * up to date after every step once it has been asked for.
+ */
+public class FroggerEnv {
+    /**
+     * Action that gives no input.
+     */
+    public static final int NOOP = 0;
+    /**
+     * Action that hops the frog up one row.
+     */
+    public static final int UP = 1;
+    /**
+     * Action that holds left, moving the frog left every tick of the step.
+     */
+    public static final int LEFT = 2;
+    /**
+     * Action that holds right, moving the frog right every tick of the step.
+     */
+    public static final int RIGHT = 3;
+    /**
+     * Number of different actions.
+     */
+    public static final int ACTION_COUNT = 4;
+    /**
+     * Most moving objects included in the observation. Any beyond this are left out.
+     */
+    public static final int MAX_OBSERVED_OBJECTS = 32;
+    /**
+     * Number of values describing the frog at the start of the observation.
+     */
+    public static final int FROG_VALUES = 3;
+    /**
+     * Number of values describing each moving object in the observation.
+     */
+    public static final int OBJECT_VALUES = 5;
+    /**
+     * Number of values in every observation.
+     */
+    public static final int OBSERVATION_SIZE = FROG_VALUES + MAX_OBSERVED_OBJECTS * OBJECT_VALUES;
+    /**
+     * Default reward subtracted for each frog that dies.
+     */
+    public static final float DEFAULT_DEATH_PENALTY = 100;
+    /**
+     * Lives each game starts with, used to scale the lives in the observation.
+     */
+    private static final float STARTING_LIVES = 3;
+
+    /**
+     * The level every episode is played on.
+     */
+    private final LaneTable lanes;
+    /**
+     * Number of ticks run by every step.
+     */
+    private final int ticksPerStep;
+    /**
+     * Most steps in an episode before it is done, or 0 for no limit.
+     */
+    private final int maxEpisodeSteps;
+    /**
+     * Reward subtracted for each frog that dies.
+     */
+    private final float deathPenalty;
+    /**
+     * The world of the current episode.
+     */
+    private World world;
+    /**
+     * Grid of the current world's cells, or null until it is first asked for in an episode.
+     */
+    private OccupancyGrid occupancyGrid;
+    /**
+     * The key currently held by a LEFT or RIGHT action, or -1 when none is held.
+     */
+    private int heldKey;
+    /**
+     * Number of steps taken in the current episode.
+     */
+    private int episodeSteps;
+    /**
+     * True once the current episode is done.
+     */
+    private boolean isDone;
+
+    /**
+     * Creates an environment on the default level that runs one tick per step with no step limit.
+     * reset() must be called before the first step.
+     */
+    public FroggerEnv() {
+        this(LaneTable.getDefault(), 1, 0, DEFAULT_DEATH_PENALTY);
+    }
+
+    /**
+     * Creates an environment. reset() must be called before the first step.
+     *
+     * @param lanes The level every episode is played on.
+     * @param ticksPerStep Number of ticks run by every step. At least 1.
+     * @param maxEpisodeSteps Most steps in an episode before it is done, or 0 for no limit.
+     * @param deathPenalty Reward subtracted for each frog that dies.
+     */
+    public FroggerEnv(LaneTable lanes, int ticksPerStep, int maxEpisodeSteps, float deathPenalty) {
+        if(ticksPerStep < 1) {
+            throw new IllegalArgumentException("ticksPerStep must be at least 1: " + ticksPerStep);
+        }
+        this.lanes = lanes;
+        this.ticksPerStep = ticksPerStep;
+        this.maxEpisodeSteps = maxEpisodeSteps;
+        this.deathPenalty = deathPenalty;
+    }
+
+    /**
+     * Starts a new episode.
+     *
+     * @param seed The seed for the new episode's world.
+     * @return The first observation of the episode.
+     */
+    public float[] reset(long seed) {
+        float[] observation = new float[OBSERVATION_SIZE];
+        reset(seed, observation, 0);
+        return observation;
+    }
+
+    /**
+     * Starts a new episode, writing the first observation into the array.
+     *
+     * @param seed The seed for the new episode's world.
+     * @param observation Where to write the observation.
+     * @param offset Index in the array of the first value of the observation.
+     */
+    public void reset(long seed, float[] observation, int offset) {
+        world = new World(seed, lanes);
+        occupancyGrid = null;
+        heldKey = -1;
+        episodeSteps = 0;
+        isDone = false;
+        observe(observation, offset);
+    }
+
+    /**
+     * Applies an action and runs the ticks of one step.
+     *
+     * @param action One of NOOP, UP, LEFT, or RIGHT.
+     * @return The reward, done flag, and observation after the step.
+     */
+    public StepResult step(int action) {
+        float[] observation = new float[OBSERVATION_SIZE];
+        float reward = step(action, observation, 0);
+        return new StepResult(observation, reward, isDone);
+    }
+
+    /**
+     * Applies an action and runs the ticks of one step, writing the observation into the array.
+     * Whether the episode is done afterwards is given by isDone().
+     *
+     * @param action One of NOOP, UP, LEFT, or RIGHT.
+     * @param observation Where to write the observation.
+     * @param offset Index in the array of the first value of the observation.
+     * @return The score gained during the step less the penalty for any deaths.
+     */
+    public float step(int action, float[] observation, int offset) {
+        if(world == null) {
+            throw new IllegalStateException("reset() must be called before step()");
+        }
+        if(isDone) {
+            throw new IllegalStateException("The episode is done, reset() must be called before stepping again");
+        }
+        Player player = world.getPlayer();
+        int startScore = player.getScore();
+        int startDeaths = player.getDeaths();
+
+        applyAction(action);
+        for(int tick = 0; tick < ticksPerStep && !world.isGameEnded(); tick++) {
+            world.tick(GamePanel.TIME_INTERVAL);
+        }
+        episodeSteps++;
+        if(occupancyGrid != null) {
+            occupancyGrid.update();
+        }
+        isDone = world.isGameEnded() || (maxEpisodeSteps > 0 && episodeSteps >= maxEpisodeSteps);
+        observe(observation, offset);
+        return (player.getScore() - startScore) - (player.getDeaths() - startDeaths) * deathPenalty;
+    }
+
+    /**
+     * Checks if the current episode is done.
+     *
+     * @return True when the game has ended or the step limit was reached.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Gets the world of the current episode, for example to draw it.
+     *
+     * @return The world, or null before the first reset.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the grid of cells of the current world, creating it on first use in each episode.
+     * From then on it is updated after every step.
+     *
+     * @return The occupancy grid of the current world.
+     */
+    public OccupancyGrid getOccupancyGrid() {
+        if(world == null) {
+            throw new IllegalStateException("reset() must be called before getOccupancyGrid()");
+        }
+        if(occupancyGrid == null) {
+            occupancyGrid = new OccupancyGrid(world);
+        }
+        return occupancyGrid;
+    }
+
+    /**
+     * Turns an action into input for the player. UP is a single press, while LEFT and RIGHT are
+     * held until a different action is taken, as if a key was held down.
+     *
+     * @param action One of NOOP, UP, LEFT, or RIGHT.
+     */
+    private void applyAction(int action) {
+        int key;
+        switch(action) {
+            case NOOP: key = -1; break;
+            case UP: key = KeyEvent.VK_UP; break;
+            case LEFT: key = KeyEvent.VK_LEFT; break;
+            case RIGHT: key = KeyEvent.VK_RIGHT; break;
+            default: throw new IllegalArgumentException("Unknown action: " + action);
+        }
+        if(heldKey != -1 && heldKey != key) {
+            world.handleInput(heldKey, false);
+            heldKey = -1;
+        }
+        if(key == KeyEvent.VK_UP) {
+            world.handleInput(key, true);
+        } else if(key != -1 && heldKey == -1) {
+            world.handleInput(key, true);
+            heldKey = key;
+        }
+    }
+
+    /**
+     * Writes the observation of the current state into the array.
+     *
+     * @param observation Where to write the observation.
+     * @param offset Index in the array of the first value of the observation.
+     */
+    private void observe(float[] observation, int offset) {
+        Player player = world.getPlayer();
+        Frog frog = player.getCurrentFrog();
+        observation[offset] = frog == null ? -1 : (float)frog.position.x / GamePanel.PANEL_WIDTH;
+        observation[offset + 1] = frog == null ? -1 : (float)frog.position.y / GamePanel.PANEL_HEIGHT;
+        observation[offset + 2] = player.getLives() / STARTING_LIVES;
+
+        List<MovingObject> objects = world.getObjectList();
+        int observed = Math.min(objects.size(), MAX_OBSERVED_OBJECTS);
+        int index = offset + FROG_VALUES;
+        for(int i = 0; i < observed; i++) {
+            MovingObject object = objects.get(i);
+            LaneTable objectLanes = object.lanes;
+            int lane = object.getLane();
+            float speed = (float)objectLanes.getMoveDistance(lane) / Math.max(1, objectLanes.getMoveDelay(lane));
+            observation[index++] = (float)object.position.x / GamePanel.PANEL_WIDTH;
+            observation[index++] = (float)object.position.y / GamePanel.PANEL_HEIGHT;
+            observation[index++] = (float)object.width / GamePanel.PANEL_WIDTH;
+            observation[index++] = objectLanes.isMovingLeft(lane) ? -speed : speed;
+            observation[index++] = object.isSafe() ? 1 : 0;
+        }
+        for(int end = offset + OBSERVATION_SIZE; index < end; index++) {
+            observation[index] = 0;
+        }
+    }
+
+    /**
+     * The outcome of a single step.
+     */
+    public static class StepResult {
+        /**
+         * The observation after the step.
+         */
+        public final float[] observation;
+        /**
+         * The score gained during the step less the penalty for any deaths.
+         */
+        public final float reward;
+        /**
+         * True when the episode is done and reset() must be called before stepping again.
+         */
+        public final boolean isDone;
+
+        /**
+         * @param observation The observation after the step.
+         * @param reward The reward for the step.
+         * @param isDone True when the episode is done.
+         */
+        public StepResult(float[] observation, float reward, boolean isDone) {
+            this.observation = observation;
+            this.reward = reward;
+            this.isDone = isDone;
+        }
+    }
+}
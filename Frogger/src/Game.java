@@ -1,6 +1,13 @@
 import javax.swing.*;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.event.KeyListener;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Frogger
@@ -8,18 +15,167 @@ import java.awt.event.KeyListener;
  *
  * Game class:
  * Defines the entry point for the game by creating the frame,
- * and populating it with a GamePanel.
+ * and populating it with a GamePanel. The world and fonts are prepared on
+ * background threads while the frame is being created on the EDT, and the
+ * GamePanel is added once the world is ready without the EDT waiting for it.
  */
 public class Game implements KeyListener {
+    /**
+     * Rows above and below the screen that lanes of a mapped level are materialized for when no radius is given.
+     */
+    private static final int DEFAULT_MATERIALIZE_RADIUS = 2;
+
     /**
      * Entry point for the application to create an instance of the Game class.
+     * Setting the system property frogger.telemetry to a directory records telemetry there, and
+     * the system property frogger.scores changes the high score file from highscores.dat.
+     * Setting the system property frogger.watchLevel to true while playing a level file applies
+     * changes to its lane tuning whenever the file is saved, and setting frogger.spectate to a
+     * file records a spectator feed of the game there (see SpectatorStream).
      *
-     * @param args Not used.
+     * @param args Optionally the path to a level file to play instead of the default level,
+     *             --endless to play endless mode, or --mapped followed by the path to a binary
+     *             level (see MappedLevel) and optionally the materialize radius in rows.
      */
     public static void main(String[] args) {
-        Game game = new Game();
+        launch(args);
+    }
+
+    /**
+     * Starts creating the world, opening the high scores, and warming up fonts in the background,
+     * and creates the Game's frame on the EDT in parallel with them. The GamePanel is added on
+     * the EDT once the world is ready.
+     *
+     * @param args The same arguments as main().
+     * @return Completes with the Game once its frame is visible, or exceptionally if the world
+     *         could not be created.
+     */
+    public static CompletableFuture<Game> launch(String[] args) {
+        CompletableFuture.runAsync(GamePanel::warmUpFonts);
+        CompletableFuture<World> pendingWorld = CompletableFuture.supplyAsync(() -> createWorld(args))
+                .thenApply(Game::recordTelemetry)
+                .thenApply(Game::recordSpectatorFeed)
+                .thenApply(world -> watchLevel(world, args));
+        CompletableFuture<HighScoreStore> highScores = HighScoreStore.open(Paths.get(System.getProperty("frogger.scores", "highscores.dat")));
+        CompletableFuture<Game> game = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            Game created = new Game();
+            pendingWorld.thenAccept(world -> SwingUtilities.invokeLater(() -> {
+                created.showWorld(world);
+                created.getGamePanel().setHighScores(highScores);
+                game.complete(created);
+            })).exceptionally(e -> {
+                game.completeExceptionally(e);
+                return null;
+            });
+        });
+        return game;
+    }
+
+    /**
+     * Creates the world to play based on the arguments.
+     *
+     * @param args Optionally the path to a level file, --endless, or --mapped with a binary level.
+     * @return The world to play.
+     */
+    private static World createWorld(String[] args) {
+        if(args.length > 0 && args[0].equals("--endless")) {
+            return new World(System.nanoTime(), new LaneRing());
+        } else if(args.length > 1 && args[0].equals("--mapped")) {
+            try {
+                // Left open for as long as the game runs, as lanes are read from it while scrolling.
+                MappedLevel level = new MappedLevel(Paths.get(args[1]));
+                int radius = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MATERIALIZE_RADIUS;
+                return new World(System.nanoTime(), level, radius);
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Failed to load mapped level " + args[1] + ": " + e.getMessage());
+                System.exit(1);
+            }
+        } else if(args.length > 0) {
+            try {
+                return new World(System.nanoTime(), LaneTable.load(Paths.get(args[0])));
+            } catch (IOException e) {
+                System.err.println("Failed to load level " + args[0] + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        return new World(System.nanoTime());
+    }
+
+    /**
+     * Records the world's telemetry to the directory in the frogger.telemetry system property,
+     * if it is set. The telemetry is written out when the application exits.
+     *
+     * @param world The world to record.
+     * @return The same world.
+     */
+    private static World recordTelemetry(World world) {
+        String directory = System.getProperty("frogger.telemetry");
+        if(directory == null) {
+            return world;
+        }
+        try {
+            TelemetryWriter telemetry = new TelemetryWriter(Paths.get(directory));
+            world.addEventListener(new SessionTelemetry(telemetry, 0, world));
+            Runtime.getRuntime().addShutdownHook(new Thread(telemetry::close));
+        } catch (IOException e) {
+            System.err.println("Failed to start telemetry in " + directory + ": " + e.getMessage());
+        }
+        return world;
+    }
+
+    /**
+     * Records a spectator feed of the world to the file in the frogger.spectate system property,
+     * if it is set. Must be called before the world's first tick. The feed is written out when the
+     * application exits.
+     *
+     * @param world The world to record.
+     * @return The same world.
+     */
+    private static World recordSpectatorFeed(World world) {
+        String file = System.getProperty("frogger.spectate");
+        if(file == null) {
+            return world;
+        }
+        try {
+            SpectatorStream feed = new SpectatorStream(world, new BufferedOutputStream(Files.newOutputStream(Paths.get(file))));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    feed.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close spectator feed " + file + ": " + e.getMessage());
+                }
+            }));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to record spectator feed to " + file + ": " + e.getMessage());
+        }
+        return world;
     }
 
+    /**
+     * Watches the level file for lane tuning changes while the game runs, if the frogger.watchLevel
+     * system property is true and a level file was given.
+     *
+     * @param world The world to apply the tuning to.
+     * @param args The same arguments as main().
+     * @return The same world.
+     */
+    private static World watchLevel(World world, String[] args) {
+        if(!Boolean.getBoolean("frogger.watchLevel") || args.length == 0 || world.getLanes() == null) {
+            return world;
+        }
+        try {
+            new LevelWatcher(Paths.get(args[0]), world);
+        } catch (IOException e) {
+            System.err.println("Failed to watch level " + args[0] + ": " + e.getMessage());
+        }
+        return world;
+    }
+
+    /**
+     * The window the game is shown in.
+     */
+    private final JFrame frame;
     /**
      * Reference to the GamePanel object to pass key events to.
      */
@@ -27,21 +183,66 @@ public class Game implements KeyListener {
 
     /**
      * Creates the JFrame with a GamePanel inside it, attaches a key listener,
-     * and makes everything visible.
+     * and makes everything visible. Must be called on the EDT.
+     *
+     * @param world The game state to play.
+     */
+    public Game(World world) {
+        this();
+        showWorld(world);
+    }
+
+    /**
+     * Creates the JFrame while the world is still being prepared. showWorld() is called on the
+     * EDT once the world is ready.
      */
-    public Game() {
-        JFrame frame = new JFrame("Frogger");
+    private Game() {
+        frame = new JFrame("Frogger");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setResizable(false);
+    }
 
-        gamePanel = new GamePanel();
+    /**
+     * Puts a GamePanel for the world inside the frame, attaches a key listener and a window
+     * listener that pauses the game while the window is inactive, and makes everything visible.
+     * Must be called on the EDT.
+     *
+     * @param world The game state to play.
+     */
+    private void showWorld(World world) {
+        gamePanel = new GamePanel(world);
         frame.getContentPane().add(gamePanel);
 
         frame.addKeyListener(this);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowActivated(WindowEvent e) {
+                gamePanel.setWindowActive(true);
+            }
+
+            @Override
+            public void windowDeactivated(WindowEvent e) {
+                gamePanel.setWindowActive(false);
+            }
+
+            @Override
+            public void windowIconified(WindowEvent e) {
+                gamePanel.setWindowActive(false);
+            }
+        });
         frame.pack();
         frame.setVisible(true);
     }
 
+    /**
+     * Gets the panel the game is drawn in.
+     *
+     * @return The GamePanel inside the frame.
+     */
+    public GamePanel getGamePanel() {
+        return gamePanel;
+    }
+
     /**
      * Called when the key is pressed down. Passes the key press on to the GamePanel.
      *
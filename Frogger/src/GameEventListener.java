@@ -0,0 +1,88 @@
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * GameEventListener interface:
+ * Receives the input and outcome events of a World as they happen during a tick.
+ * Every method has an empty default so listeners only need to override what they use.
+ * The World's tick count at the time of the event can be used to place it in time.
+ */
+public interface GameEventListener {
+    /**
+     * The causes of a frog being removed without scoring.
+     */
+    enum DeathCause {
+        /**
+         * Hit an object that is not safe to stand on.
+         */
+        CAR,
+        /**
+         * In the water area without being on a safe object.
+         */
+        WATER,
+        /**
+         * Reached the end without landing on a lily.
+         */
+        MISSED_LILY,
+        /**
+         * Landed on a lily that already had a frog on it.
+         */
+        OCCUPIED_LILY
+    }
+
+    /**
+     * Called when a key event is applied to the world.
+     *
+     * @param keyCode The key that was pressed or released.
+     * @param isPressed True indicates the key is pressed, false indicates it has been released.
+     */
+    default void onInput(int keyCode, boolean isPressed) {}
+
+    /**
+     * Called when the current frog attaches to a different safe object, or stops riding one.
+     *
+     * @param objectIndex Index of the object in the world's object list, or -1 when no longer attached.
+     */
+    default void onFrogAttached(int objectIndex) {}
+
+    /**
+     * Called when the current frog dies.
+     *
+     * @param cause What the frog died to.
+     */
+    default void onFrogDeath(DeathCause cause) {}
+
+    /**
+     * Called when the current frog reaches a free lily.
+     *
+     * @param score The player's score after the frog was scored.
+     */
+    default void onFrogScored(int score) {}
+
+    /**
+     * Called when a moving object has moved off screen and been reset with a new width.
+     *
+     * @param objectIndex Index of the object in the world's object list.
+     * @param width The new width of the object.
+     */
+    default void onObstacleReset(int objectIndex, int width) {}
+
+    /**
+     * Called at the start of a tick once new lane tuning has been copied into the world's lanes.
+     *
+     * @param lanes The world's lanes with the new tuning applied.
+     */
+    default void onLanesRetuned(LaneTable lanes) {}
+
+    /**
+     * Called when the world has been restarted with a new layout and a new player.
+     */
+    default void onRestart() {}
+
+    /**
+     * Called at the end of every tick with how long the tick took.
+     *
+     * @param tickNanos Duration of the tick in ns.
+     */
+    default void onTickCompleted(long tickNanos) {}
+}
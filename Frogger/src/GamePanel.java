@@ -1,19 +1,43 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Frogger
  * Author: Peter Mitchell (2021)
  *
  * GamePanel class:
- * Manages the game objects with regular updates.
+ * Drives the World with regular updates on its own simulation thread and draws it on the EDT.
+ * After every tick the simulation thread publishes a RenderSnapshot of the world, and painting
+ * only ever draws the latest snapshot, so a slow paint never delays a tick or the reverse.
+ * The world itself is only touched by the simulation thread, with input queued for the next tick.
+ *
+ * When painting falls behind, the simulation keeps ticking at its rate and skips publishing frames:
+ * a frame is skipped while the previous one has not been painted yet or the next tick is already
+ * due. At most maxFrameSkip frames are skipped in a row, after which the simulation waits for the
+ * frame to be painted. Every tick is the same length whether or not its frame is drawn, so the
+ * gameplay is identical on slow and fast machines. Frames with many objects are drawn in bands
+ * across threads by a BandRenderer.
+ *
+ * The simulation can run from 0.25x to 1000x speed (set with setSpeedMultiplier() or the
+ * frogger.speed system property). Every tick is still TIME_INTERVAL ms of game time, so the
+ * gameplay is the same at any speed; the multiplier only changes how much game time is owed for
+ * each ns of real time, and the simulation runs a tick whenever a full TIME_INTERVAL is owed.
+ *
+ * The simulation thread sleeps without ticking or repainting while nothing can change on screen:
+ * once the game has ended and its final frame is published, and while the window is minimised or
+ * not focused (set with setWindowActive()), which pauses the game. Input, restarting, and window
+ * events wake it straight away, and the panel still paints the latest snapshot with the game over
+ * overlay whenever Swing asks it to.
  */
-public class GamePanel extends JPanel implements ActionListener {
+public class GamePanel extends JPanel {
     /**
      * Time between updates in ms.
      */
@@ -30,62 +54,323 @@ public class GamePanel extends JPanel implements ActionListener {
      * Segment height used for all the spacing out math to make elements appear relative to eachother.
      */
     public static final int SEGMENT_HEIGHT = GamePanel.PANEL_HEIGHT/14;
+    /**
+     * Message shown over the game when it has ended.
+     */
+    private static final String GAME_OVER_MESSAGE = "All Frogs Expended!";
+    /**
+     * Font used for the game over message.
+     */
+    private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 20);
+    /**
+     * Most frames skipped in a row when no maximum is set with the frogger.maxFrameSkip system property.
+     */
+    public static final int DEFAULT_MAX_FRAME_SKIP = 5;
+    /**
+     * Slowest speed the simulation can run at, as a multiple of real time.
+     */
+    public static final double MIN_SPEED_MULTIPLIER = 0.25;
+    /**
+     * Fastest speed the simulation can run at, as a multiple of real time.
+     */
+    public static final double MAX_SPEED_MULTIPLIER = 1000;
+    /**
+     * Most real time in ms of ticks the simulation will catch up on, so a stall such as a paused
+     * debugger does not fast forward the game afterwards.
+     */
+    private static final int MAX_CATCH_UP = 250;
+    /**
+     * Longest time in ms the simulation waits for a frame to be painted, in case painting has stopped
+     * altogether such as while the window is minimised.
+     */
+    private static final int MAX_PAINT_WAIT = 250;
 
     /**
-     * The background elements that are all static.
+     * Thread that ticks the world on the TIME_INTERVAL.
+     */
+    private final Thread simulationThread;
+    /**
+     * The game state that is updated on each tick. Only used by the simulation thread once started.
+     */
+    private final World world;
+    /**
+     * The most recent snapshot of the world published by the simulation thread.
+     */
+    private final AtomicReference<RenderSnapshot> latestSnapshot;
+    /**
+     * Draws the lives and score of snapshots. Only used while painting on the EDT.
+     */
+    private final Hud hud;
+    /**
+     * Draws snapshots, splitting those with many objects into bands drawn across threads.
+     */
+    private final BandRenderer bandRenderer;
+    /**
+     * System.nanoTime() when the first frame finished painting, and when the first update
+     * after that ran (from then on input is being handled), or 0 until they happen.
+     */
+    private volatile long firstFrameNanos, firstInteractiveNanos;
+    /**
+     * The leaderboard that finished games are added to, possibly still opening, or null for none.
+     */
+    private volatile CompletableFuture<HighScoreStore> highScores;
+    /**
+     * Rank of the score of the game that has ended, shown with the game over message, or null when unknown.
+     */
+    private volatile String rankMessage;
+    /**
+     * Most frames that can be skipped in a row when painting falls behind. 0 never skips.
+     */
+    private volatile int maxFrameSkip;
+    /**
+     * Game time run for each unit of real time.
+     */
+    private volatile double speedMultiplier;
+    /**
+     * True from when a frame is published until it has been painted.
+     */
+    private volatile boolean paintPending;
+    /**
+     * Number of frames skipped in total.
      */
-    private Background background;
+    private volatile long skippedFrames;
     /**
-     * Timer that triggers on the TIME_INTERVAL and causes updates.
+     * Number of frames skipped in a row since the last published frame. Only used by the simulation thread.
      */
-    private Timer gameTimer;
+    private int consecutiveSkippedFrames;
     /**
-     * A list of all the objects that are moving either left or right as obstacles
+     * Number of frames painted, and how long the last paint took in ns.
      */
-    private List<MovingObject> objectList;
+    private volatile long paintedFrames, lastPaintNanos;
     /**
-     * The player object that controls its own lives, score, and frogs.
+     * False while the window is minimised or not focused, pausing the simulation.
      */
-    private Player player;
+    private volatile boolean isWindowActive;
 
     /**
-     * Creates all the elements ready to start the game and starts updates.
+     * Creates all the elements ready to start the game with a random seed and starts updates.
      */
     public GamePanel() {
+        this(System.nanoTime(), LaneTable.getDefault());
+    }
+
+    /**
+     * Creates all the elements ready to start the game and starts updates.
+     *
+     * @param seed The seed that all randomised layouts and resets are derived from.
+     * @param lanes The level defining every lane of moving objects.
+     */
+    public GamePanel(long seed, LaneTable lanes) {
+        this(new World(seed, lanes));
+    }
+
+    /**
+     * Starts updates for an existing world.
+     *
+     * @param world The game state to update and draw.
+     */
+    public GamePanel(World world) {
         setPreferredSize(new Dimension(PANEL_WIDTH, PANEL_HEIGHT));
-        background = new Background();
-        objectList = new ArrayList<>();
-        gameTimer = new Timer(TIME_INTERVAL, this);
-        initMovingObjects();
-        player = new Player(background, objectList);
-        gameTimer.start();
+        this.world = world;
+        latestSnapshot = new AtomicReference<>(new RenderSnapshot(world));
+        hud = new Hud(world.getBackground().getScoreZone());
+        bandRenderer = new BandRenderer(world.getBackground());
+        maxFrameSkip = Math.max(0, Integer.getInteger("frogger.maxFrameSkip", DEFAULT_MAX_FRAME_SKIP));
+        setSpeedMultiplier(readSpeedMultiplier());
+        isWindowActive = true;
+        simulationThread = new Thread(this::runSimulation, "frogger-simulation");
+        simulationThread.setDaemon(true);
+        world.setQueueListener(() -> LockSupport.unpark(simulationThread));
+        simulationThread.start();
     }
 
     /**
-     * Draws the background elements, all the moving objects, the player elements,
-     * and if the game has ended an overlay to indicate it.
+     * Draws the latest snapshot of the background elements, all the moving objects, the player
+     * elements, and if the game has ended an overlay to indicate it.
      *
      * @param g Reference to the Graphics object for rendering.
      */
     public void paint(Graphics g) {
-        background.paint(g);
-        objectList.forEach(obj -> obj.paint(g));
-        player.paint(g);
-        if(player.isGameEnded()) {
-            drawGameOver(g);
+        long start = System.nanoTime();
+        FlightEvents.Paint paintEvent = null;
+        if(FlightEvents.isPaintEnabled()) {
+            paintEvent = new FlightEvents.Paint();
+            paintEvent.begin();
+        }
+        RenderSnapshot snapshot = latestSnapshot.get();
+        bandRenderer.paint(g, snapshot, hud);
+        if(snapshot.isGameEnded()) {
+            drawGameOver(g, rankMessage);
+        }
+        if(paintEvent != null) {
+            paintEvent.snapshotTick = snapshot.getTickCount();
+            paintEvent.skippedFrames = skippedFrames;
+            paintEvent.commit();
+        }
+        long end = System.nanoTime();
+        if(firstFrameNanos == 0) {
+            firstFrameNanos = end;
         }
+        lastPaintNanos = end - start;
+        paintedFrames++;
+        paintPending = false;
+        LockSupport.unpark(simulationThread);
+    }
+
+    /**
+     * Sets the most frames that can be skipped in a row when painting falls behind.
+     *
+     * @param maxFrameSkip Most frames skipped in a row, or 0 to draw every frame.
+     */
+    public void setMaxFrameSkip(int maxFrameSkip) {
+        this.maxFrameSkip = Math.max(0, maxFrameSkip);
+    }
+
+    /**
+     * Sets how fast the game runs compared to real time.
+     *
+     * @param speedMultiplier Game time run for each unit of real time,
+     *                        from MIN_SPEED_MULTIPLIER to MAX_SPEED_MULTIPLIER.
+     */
+    public void setSpeedMultiplier(double speedMultiplier) {
+        this.speedMultiplier = checkSpeedMultiplier(speedMultiplier);
+        LockSupport.unpark(simulationThread);
+    }
+
+    /**
+     * Reads the speed multiplier from the frogger.speed system property, shared by the GamePanel
+     * and the GameServer.
+     *
+     * @return The speed multiplier, or 1 when the property is not set.
+     * @throws IllegalArgumentException If the property is not a number from MIN_SPEED_MULTIPLIER
+     *                                  to MAX_SPEED_MULTIPLIER.
+     */
+    public static double readSpeedMultiplier() {
+        return checkSpeedMultiplier(Double.parseDouble(System.getProperty("frogger.speed", "1")));
+    }
+
+    /**
+     * Checks a speed multiplier is within the range the simulation can run at.
+     *
+     * @param speedMultiplier Game time run for each unit of real time.
+     * @return The same speed multiplier.
+     * @throws IllegalArgumentException If it is not from MIN_SPEED_MULTIPLIER to MAX_SPEED_MULTIPLIER.
+     */
+    private static double checkSpeedMultiplier(double speedMultiplier) {
+        if(!(speedMultiplier >= MIN_SPEED_MULTIPLIER && speedMultiplier <= MAX_SPEED_MULTIPLIER)) {
+            throw new IllegalArgumentException("Speed multiplier must be from " + MIN_SPEED_MULTIPLIER
+                    + " to " + MAX_SPEED_MULTIPLIER + ": " + speedMultiplier);
+        }
+        return speedMultiplier;
+    }
+
+    /**
+     * Pauses the simulation while the window is inactive and resumes it straight away when it is
+     * active again. Called with the window being activated, deactivated, minimised, or restored.
+     *
+     * @param isWindowActive True when the window is showing and focused.
+     */
+    public void setWindowActive(boolean isWindowActive) {
+        this.isWindowActive = isWindowActive;
+        LockSupport.unpark(simulationThread);
+    }
+
+    /**
+     * Gets how fast the game runs compared to real time.
+     *
+     * @return Game time run for each unit of real time.
+     */
+    public double getSpeedMultiplier() {
+        return speedMultiplier;
+    }
+
+    /**
+     * Gets the number of frames that were not drawn because painting had fallen behind.
+     *
+     * @return Total frames skipped.
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * Gets the number of frames that have been painted.
+     *
+     * @return Total frames painted.
+     */
+    public long getPaintedFrames() {
+        return paintedFrames;
+    }
+
+    /**
+     * Gets how long the most recent paint took.
+     *
+     * @return Duration of the last paint in ns.
+     */
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
+    }
+
+    /**
+     * Draws a world the same way the panel does, for rendering it somewhere other than the screen.
+     *
+     * @param world The world to draw.
+     * @param g Reference to the Graphics object for rendering.
+     */
+    public static void paintWorld(World world, Graphics g) {
+        world.paint(g);
+        if(world.isGameEnded()) {
+            drawGameOver(g, null);
+        }
+    }
+
+    /**
+     * Gets when the first frame finished painting.
+     *
+     * @return System.nanoTime() at the end of the first paint, or 0 if it has not happened.
+     */
+    public long getFirstFrameNanos() {
+        return firstFrameNanos;
+    }
+
+    /**
+     * Gets when the game first updated after the first frame was shown.
+     *
+     * @return System.nanoTime() of the first update after the first frame, or 0 if it has not happened.
+     */
+    public long getFirstInteractiveNanos() {
+        return firstInteractiveNanos;
+    }
+
+    /**
+     * Loads the font used by the game by measuring text offscreen, so it can be done on a
+     * background thread during startup instead of during the first frame.
+     */
+    public static void warmUpFonts() {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        g.setFont(GAME_OVER_FONT);
+        g.getFontMetrics().stringWidth(GAME_OVER_MESSAGE + "0123456789 :Score");
+        g.dispose();
+    }
+
+    /**
+     * Sets the leaderboard that the score of every finished game is added to.
+     *
+     * @param highScores The leaderboard, which may still be opening, or null for none.
+     */
+    public void setHighScores(CompletableFuture<HighScoreStore> highScores) {
+        this.highScores = highScores;
     }
 
     /**
      * Resets the player and moving objects back to defaults.
      */
     public void restart() {
-        player.reset();
-        initMovingObjects();
+        world.queueInput(KeyEvent.VK_R, true);
     }
 
     /**
-     * Checks for escape to quit, R to restart, and otherwise passes off to the player for player input.
+     * Checks for escape to quit, and otherwise queues the input for the world to apply on its next tick.
      *
      * @param keyCode The key that was pressed or released.
      * @param isPressed True indicates the key is pressed, false indicates it has been released.
@@ -93,102 +378,142 @@ public class GamePanel extends JPanel implements ActionListener {
     public void handleInput(int keyCode, boolean isPressed) {
         if(keyCode == KeyEvent.VK_ESCAPE) {
             System.exit(0);
-        } else if(keyCode == KeyEvent.VK_R) {
-            restart();
         } else {
-            player.handleInput(keyCode, isPressed);
+            world.queueInput(keyCode, isPressed);
         }
-        repaint();
     }
 
     /**
-     * If the game hasn't ended the game elements will be updated.
-     * Initially the player is updated, then all the objects. If the
-     * player is inside one of the objects attached to them it will
-     * be managed in the postUpdate() call to player.
-     *
-     * @param e Information about the event.
+     * Ticks the world for as long as the application runs. Real time is accumulated as owed game
+     * time scaled by the speed multiplier, and a tick is run for every TIME_INTERVAL owed, so the
+     * world keeps its rate even if a tick runs late. After each tick its frame is either published or skipped.
+     * While idle the thread parks until woken, and no time is owed for the time spent idle.
      */
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        if (!player.isGameEnded()) {
-            player.update(TIME_INTERVAL);
-            for (int i = 0; i < objectList.size(); i++) {
-                objectList.get(i).update(TIME_INTERVAL);
-                if (objectList.get(i).isExpired()) {
-                    objectList.get(i).reset();
-                }
+    private void runSimulation() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(TIME_INTERVAL);
+        long lastNanos = System.nanoTime();
+        double owedNanos = 0;
+        while(true) {
+            if(isIdle()) {
+                LockSupport.park(this);
+                owedNanos = 0;
+                lastNanos = System.nanoTime();
+                continue;
+            }
+            double speed = speedMultiplier;
+            long now = System.nanoTime();
+            owedNanos = Math.min(owedNanos + (now - lastNanos) * speed,
+                    TimeUnit.MILLISECONDS.toNanos(MAX_CATCH_UP) * speed);
+            lastNanos = now;
+            if(owedNanos < intervalNanos) {
+                LockSupport.parkNanos((long)Math.ceil((intervalNanos - owedNanos) / speed));
+                continue;
+            }
+            tick();
+            owedNanos -= intervalNanos;
+            boolean isBehind = owedNanos >= intervalNanos;
+            // The limit covers the same real time at any speed, as a faster game runs more ticks in it.
+            if((isBehind || paintPending) && consecutiveSkippedFrames < maxFrameSkip * Math.max(1, speed)) {
+                skippedFrames++;
+                consecutiveSkippedFrames++;
+            } else {
+                awaitPaint();
+                publishFrame();
             }
-            player.postUpdate();
         }
-        repaint();
     }
 
     /**
-     * Clears all the moving objects and spawns new sets of the
-     * logs, cars, and turtles.
+     * Checks if ticking would change nothing on screen, because the window is inactive, or the
+     * game has ended with its final frame published and there is no input to apply. Never idle
+     * while lane tuning is queued, so a level reload is applied straight away.
+     *
+     * @return True if the simulation should sleep until woken.
      */
-    private void initMovingObjects() {
-        objectList.clear();
-        initLogs();
-        initCars();
-        initTurtles();
+    private boolean isIdle() {
+        if(world.hasQueuedTuning()) {
+            return false;
+        }
+        return !isWindowActive
+                || (world.isGameEnded() && latestSnapshot.get().isGameEnded() && !world.hasQueuedInput());
     }
 
     /**
-     * Spawns all the moving log elements.
+     * Steps the world forward by the TIME_INTERVAL.
      */
-    private void initLogs() {
-        int middleSegment = PANEL_WIDTH / SEGMENT_HEIGHT / 2+1;
-        objectList.add(new Log(0, 1, Log.getRandomSegmentLength(), false));
-        objectList.add(new Log(-middleSegment*SEGMENT_HEIGHT, 1, Log.getRandomSegmentLength(), false));
-        objectList.add(new Log(-SEGMENT_HEIGHT, 3, Log.getRandomSegmentLength(), false));
-        objectList.add(new Log(-(middleSegment+1)*SEGMENT_HEIGHT, 3, Log.getRandomSegmentLength(), false));
-        objectList.add(new Log(0, 5, Log.getRandomSegmentLength(), false));
-        objectList.add(new Log(-middleSegment*SEGMENT_HEIGHT, 5, Log.getRandomSegmentLength(), false));
+    private void tick() {
+        boolean wasGameEnded = world.isGameEnded();
+        world.tick(TIME_INTERVAL);
+        if(!wasGameEnded && world.isGameEnded()) {
+            recordHighScore(world.getPlayer().getScore());
+        }
+        if(firstInteractiveNanos == 0 && firstFrameNanos != 0) {
+            firstInteractiveNanos = System.nanoTime();
+        }
     }
 
     /**
-     * Spawns all the moving car elements.
+     * Waits until the previously published frame has been painted. Gives up if the panel is not
+     * showing or after MAX_PAINT_WAIT, since then the frame may never be painted.
      */
-    private void initCars() {
-        int middleSegment = PANEL_WIDTH / SEGMENT_HEIGHT / 2+1;
-        objectList.add(new Car(0, 7, Car.getRandomSegmentLength(), false));
-        objectList.add(new Car(-middleSegment*SEGMENT_HEIGHT, 7, Car.getRandomSegmentLength(), false));
-        objectList.add(new Car(-SEGMENT_HEIGHT, 9, Car.getRandomSegmentLength(), false));
-        objectList.add(new Car(-(middleSegment+1)*SEGMENT_HEIGHT, 9, Car.getRandomSegmentLength(), false));
-        objectList.add(new Car(0, 11, Car.getRandomSegmentLength(), false));
-        objectList.add(new Car(-middleSegment*SEGMENT_HEIGHT, 11, Car.getRandomSegmentLength(), false));
+    private void awaitPaint() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_PAINT_WAIT);
+        while(paintPending && isShowing() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
 
-        objectList.add(new Car(0, 8, Car.getRandomSegmentLength(), true));
-        objectList.add(new Car(middleSegment*SEGMENT_HEIGHT, 8, Car.getRandomSegmentLength(), true));
-        objectList.add(new Car(SEGMENT_HEIGHT, 10, Car.getRandomSegmentLength(), true));
-        objectList.add(new Car((middleSegment+1)*SEGMENT_HEIGHT, 10, Car.getRandomSegmentLength(), true));
+    /**
+     * Publishes a snapshot of the world as the next frame and requests a repaint.
+     */
+    private void publishFrame() {
+        latestSnapshot.set(new RenderSnapshot(world));
+        consecutiveSkippedFrames = 0;
+        paintPending = true;
+        repaint();
     }
 
     /**
-     * Spawns all the moving turtle elements.
+     * Adds a score to the leaderboard on a background thread, and once it has been added
+     * sets the rank message to show with the game over message.
+     *
+     * @param score The score of the game that ended.
      */
-    private void initTurtles() {
-        int middleSegment = PANEL_WIDTH / SEGMENT_HEIGHT / 2+1;
-        objectList.add(new Turtle(0, 2, Turtle.getRandomSegmentLength(), true));
-        objectList.add(new Turtle(middleSegment*SEGMENT_HEIGHT, 2, Turtle.getRandomSegmentLength(), true));
-        objectList.add(new Turtle(SEGMENT_HEIGHT, 4, Turtle.getRandomSegmentLength(), true));
-        objectList.add(new Turtle((middleSegment+1)*SEGMENT_HEIGHT, 4, Turtle.getRandomSegmentLength(), true));
+    private void recordHighScore(int score) {
+        rankMessage = null;
+        CompletableFuture<HighScoreStore> highScores = this.highScores;
+        if(highScores == null) return;
+        highScores.thenAcceptAsync(store -> {
+            try {
+                store.add(score);
+                rankMessage = "Rank " + store.getRank(score) + " of " + store.getEntryCount();
+                repaint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).exceptionally(e -> {
+            System.err.println("Failed to record high score: " + e.getMessage());
+            return null;
+        });
     }
 
     /**
      * Draws a white background with black text to show the game over message.
      *
      * @param g Reference to the Graphics object for rendering.
+     * @param rankMessage Rank of the score to show under the message, or null to show none.
      */
-    private void drawGameOver(Graphics g) {
+    private static void drawGameOver(Graphics g, String rankMessage) {
         g.setColor(Color.WHITE);
         g.fillRect(0,PANEL_HEIGHT/2-20, PANEL_WIDTH, 40);
         g.setColor(Color.BLACK);
-        g.setFont(new Font("Arial", Font.BOLD, 20));
-        String gameOverMessage = "All Frogs Expended!";
-        int strWidth = g.getFontMetrics().stringWidth(gameOverMessage);
-        g.drawString(gameOverMessage, PANEL_WIDTH/2-strWidth/2, PANEL_HEIGHT/2+10);
+        g.setFont(GAME_OVER_FONT);
+        g.drawString(GAME_OVER_MESSAGE, PANEL_WIDTH/2-g.getFontMetrics().stringWidth(GAME_OVER_MESSAGE)/2, PANEL_HEIGHT/2+10);
+        if(rankMessage != null) {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, PANEL_HEIGHT/2+20, PANEL_WIDTH, 30);
+            g.setColor(Color.BLACK);
+            g.drawString(rankMessage, PANEL_WIDTH/2-g.getFontMetrics().stringWidth(rankMessage)/2, PANEL_HEIGHT/2+42);
+        }
     }
 }
@@ -0,0 +1,321 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * GameServer class:
+ * Hosts many independent GameSessions over local TCP sockets. Every connection gets its
+ * own session and its own thread (a virtual thread when the runtime supports them), while
+ * a single shared scheduler ticks every session on the TIME_INTERVAL, divided by the speed
+ * multiplier from the frogger.speed system property for accelerated soak tests.
+ *
+ * The protocol is line based text:
+ * "P keyCode" presses a key, "R keyCode" releases a key, "S" replies with one line
+ * containing the session state (see GameSession.getState()), and "Q" closes the connection.
+ *
+ * A session that throws while ticking is dropped and its connection closed, so one broken game
+ * never stops the others from ticking. GameServerCheck runs a client against a server over
+ * loopback to check the protocol end to end.
+ */
+public class GameServer implements AutoCloseable {
+    /**
+     * Port used when none is specified on the command line.
+     */
+    public static final int DEFAULT_PORT = 7777;
+    /**
+     * Number of sessions before ticks are spread across the common ForkJoinPool.
+     */
+    private static final int PARALLEL_SESSION_THRESHOLD = 256;
+
+    /**
+     * Starts a server on the loopback address and runs until the process is stopped.
+     *
+     * @param args Optionally the port to listen on, followed by a directory to write session telemetry to.
+     * @throws IOException If the server socket could not be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        if(args.length > 1) {
+            server.setTelemetry(new TelemetryWriter(Paths.get(args[1])));
+        }
+        server.start();
+        System.out.println("Frogger server listening on port " + server.getPort());
+    }
+
+    /**
+     * Socket accepting new connections on the loopback address.
+     */
+    private final ServerSocket serverSocket;
+    /**
+     * Runs the accept loop and one task per connection.
+     */
+    private final ExecutorService connectionExecutor;
+    /**
+     * Single scheduler shared by all sessions to trigger ticks.
+     */
+    private final ScheduledExecutorService tickScheduler;
+    /**
+     * All sessions that currently have a connection.
+     */
+    private final Map<Integer, GameSession> sessions;
+    /**
+     * The connection of each session, closed when the session is dropped or the server closes.
+     */
+    private final Map<Integer, Socket> sockets;
+    /**
+     * Used to give every session a unique id and seed.
+     */
+    private final AtomicInteger nextSessionId;
+    /**
+     * Duration of the most recent and the longest tick of all sessions in ns.
+     */
+    private volatile long lastTickNanos, maxTickNanos;
+    /**
+     * Real time between ticks in ns, the TIME_INTERVAL divided by the speed multiplier.
+     */
+    private final long tickPeriodNanos;
+    /**
+     * Number of ticks that took longer than the tick period.
+     */
+    private volatile long overrunTicks;
+    /**
+     * Where new sessions publish their telemetry, or null to not record any.
+     */
+    private volatile TelemetryWriter telemetry;
+
+    /**
+     * Opens the server socket on the loopback address. Call start() to begin accepting connections.
+     *
+     * @param port Port to listen on, or 0 to pick any free port.
+     * @throws IOException If the server socket could not be opened.
+     */
+    public GameServer(int port) throws IOException {
+        double speedMultiplier = GamePanel.readSpeedMultiplier();
+        tickPeriodNanos = Math.round(TimeUnit.MILLISECONDS.toNanos(GamePanel.TIME_INTERVAL) / speedMultiplier);
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        connectionExecutor = createConnectionExecutor();
+        tickScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "frogger-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessions = new ConcurrentHashMap<>();
+        sockets = new ConcurrentHashMap<>();
+        nextSessionId = new AtomicInteger();
+    }
+
+    /**
+     * Starts ticking sessions and accepting connections.
+     */
+    public void start() {
+        tickScheduler.scheduleAtFixedRate(this::tickSessions, tickPeriodNanos, tickPeriodNanos, TimeUnit.NANOSECONDS);
+        connectionExecutor.execute(this::acceptConnections);
+    }
+
+    /**
+     * Sets where sessions created from now on publish their telemetry. The writer is closed with the server.
+     *
+     * @param telemetry Where to publish session telemetry, or null to not record any.
+     */
+    public void setTelemetry(TelemetryWriter telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Stops accepting connections, closes the server socket, stops ticking, closes the connection
+     * of every session, and writes out any remaining telemetry.
+     *
+     * @throws IOException If the server socket failed to close.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        tickScheduler.shutdownNow();
+        connectionExecutor.shutdownNow();
+        for(Integer id : sockets.keySet()) {
+            closeConnection(id);
+        }
+        if(telemetry != null) {
+            telemetry.close();
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The local port of the server socket.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of sessions that are connected.
+     *
+     * @return Number of active sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets how long it took to tick every session on the most recent tick.
+     *
+     * @return Duration of the last tick in ns.
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * Gets the longest time taken to tick every session.
+     *
+     * @return Duration of the longest tick in ns.
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+
+    /**
+     * Gets the number of ticks that did not finish within the tick period.
+     *
+     * @return Number of ticks that ran over time.
+     */
+    public long getOverrunTicks() {
+        return overrunTicks;
+    }
+
+    /**
+     * Uses one virtual thread per task when the runtime supports them, otherwise falls back to
+     * a cached pool of platform threads.
+     *
+     * @return The executor to run connections on.
+     */
+    private static ExecutorService createConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Ticks every session once, spreading the sessions across the common pool when there are many.
+     */
+    private void tickSessions() {
+        long start = System.nanoTime();
+        if(sessions.size() < PARALLEL_SESSION_THRESHOLD) {
+            sessions.values().forEach(this::tickSession);
+        } else {
+            sessions.values().parallelStream().forEach(this::tickSession);
+        }
+        long duration = System.nanoTime() - start;
+        lastTickNanos = duration;
+        if(duration > maxTickNanos) {
+            maxTickNanos = duration;
+        }
+        if(duration > tickPeriodNanos) {
+            overrunTicks++;
+        }
+    }
+
+    /**
+     * Ticks one session, dropping it and closing its connection if it throws. An exception must
+     * never escape, as it would cancel the scheduled ticks of every session.
+     *
+     * @param session The session to tick.
+     */
+    private void tickSession(GameSession session) {
+        try {
+            session.tick(GamePanel.TIME_INTERVAL);
+        } catch (RuntimeException e) {
+            System.err.println("Session " + session.getId() + " dropped after failing to tick: " + e);
+            sessions.remove(session.getId());
+            closeConnection(session.getId());
+        }
+    }
+
+    /**
+     * Closes the connection of a session, which ends its connection thread.
+     *
+     * @param id The session's id.
+     */
+    private void closeConnection(int id) {
+        Socket socket = sockets.remove(id);
+        if(socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close session " + id + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts connections until the server socket is closed, handing each one to its own thread.
+     */
+    private void acceptConnections() {
+        while(!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionExecutor.execute(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if(!serverSocket.isClosed()) {
+                    System.err.println("Failed to accept connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a session for the connection and processes its commands until it disconnects.
+     *
+     * @param socket The connected client.
+     */
+    private void handleConnection(Socket socket) {
+        int id = nextSessionId.incrementAndGet();
+        GameSession session = new GameSession(id, System.nanoTime() ^ id, telemetry);
+        sessions.put(id, session);
+        sockets.put(id, socket);
+        try(socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while((line = in.readLine()) != null) {
+                if(line.startsWith("P ") || line.startsWith("R ")) {
+                    session.handleInput(Integer.parseInt(line.substring(2).trim()), line.charAt(0) == 'P');
+                } else if(line.equals("S")) {
+                    out.write(session.getState());
+                    out.newLine();
+                    out.flush();
+                } else if(line.equals("Q")) {
+                    break;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Session " + id + " closed: " + e.getMessage());
+        } finally {
+            sessions.remove(id);
+            sockets.remove(id);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.awt.event.KeyEvent;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * GameServerCheck class:
+ * Checks the GameServer end to end over loopback. A server is started on a free port and clients
+ * connect to it the same way a real client would, sending key presses and reading back the state
+ * lines. It checks that every connection gets its own ticking session, that a hop sent over the
+ * socket moves that session's frog and no other, that quitting drops the session, and that
+ * closing the server closes the connections still open. Exits with 1 if any check fails.
+ */
+public class GameServerCheck {
+    /**
+     * Longest time to wait for the server to reach an expected state.
+     */
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Number of checks that failed.
+     */
+    private static int failures;
+
+    /**
+     * Runs every check against a new server and prints the result of each.
+     *
+     * @param args Not used.
+     * @throws IOException If the server could not be started or a client could not connect.
+     * @throws InterruptedException If interrupted while waiting for the server.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameServer server = new GameServer(0);
+        server.start();
+        try(Client first = new Client(server.getPort()); Client second = new Client(server.getPort())) {
+            int[] firstStart = first.awaitTick(1);
+            int[] secondStart = second.awaitTick(1);
+            check("each connection gets a session", server.getSessionCount() == 2);
+            check("a new session has a frog on the spawn row", firstStart[4] == Player.SPAWN_ROW * GamePanel.SEGMENT_HEIGHT);
+            int[] later = first.awaitTick(firstStart[0] + 10);
+            check("sessions tick without input", later[0] >= firstStart[0] + 10);
+
+            first.send("P " + KeyEvent.VK_UP);
+            first.send("R " + KeyEvent.VK_UP);
+            int[] hopped = first.awaitState(state -> state[4] != firstStart[4] || state[2] != firstStart[2]);
+            check("a hop sent over the socket moves the frog up a row or costs a life",
+                    hopped != null && (hopped[4] == firstStart[4] - GamePanel.SEGMENT_HEIGHT || hopped[2] < firstStart[2]));
+            int[] untouched = second.state();
+            check("input only reaches its own session", untouched[4] == secondStart[4] && untouched[2] == secondStart[2]);
+
+            first.send("Q");
+            check("quitting drops the session", awaitSessionCount(server, 1));
+            server.close();
+            check("closing the server closes open connections", second.readLine() == null);
+        } finally {
+            server.close();
+        }
+        System.out.println(failures == 0 ? "All checks passed" : failures + " checks failed");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the result of a check and counts it if it failed.
+     *
+     * @param name What was checked.
+     * @param passed True if the check passed.
+     */
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+     * Waits for the server to have a number of sessions.
+     *
+     * @param server The server.
+     * @param count The number of sessions to wait for.
+     * @return True if the server reached the count before the timeout.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static boolean awaitSessionCount(GameServer server, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while(server.getSessionCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return server.getSessionCount() == count;
+    }
+
+    /**
+     * A client connected to the server over loopback.
+     */
+    private static class Client implements AutoCloseable {
+        /**
+         * The connection to the server.
+         */
+        private final Socket socket;
+        /**
+         * Reads the lines sent by the server.
+         */
+        private final BufferedReader in;
+        /**
+         * Writes commands to the server.
+         */
+        private final BufferedWriter out;
+
+        /**
+         * Connects to a server on the loopback address.
+         *
+         * @param port Port the server is listening on.
+         * @throws IOException If the connection failed.
+         */
+        private Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setSoTimeout((int)TimeUnit.NANOSECONDS.toMillis(TIMEOUT_NANOS));
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * Sends one command line.
+         *
+         * @param command The command, such as "S" or "P 38".
+         * @throws IOException If the command could not be sent.
+         */
+        private void send(String command) throws IOException {
+            out.write(command);
+            out.newLine();
+            out.flush();
+        }
+
+        /**
+         * Reads one line from the server.
+         *
+         * @return The line, or null when the server closed the connection.
+         * @throws IOException If reading failed or timed out.
+         */
+        private String readLine() throws IOException {
+            try {
+                return in.readLine();
+            } catch (java.net.SocketException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Asks for and parses the state of the session.
+         *
+         * @return The tick, score, lives, frog x, frog y, and game ended values.
+         * @throws IOException If the state could not be read.
+         */
+        private int[] state() throws IOException {
+            send("S");
+            String line = readLine();
+            if(line == null) {
+                throw new IOException("Connection closed while waiting for the state");
+            }
+            String[] values = line.split(" ");
+            if(values.length != 6) {
+                throw new IOException("Expected 6 values in the state but got: " + line);
+            }
+            int[] state = new int[values.length];
+            for(int i = 0; i < values.length; i++) {
+                state[i] = Integer.parseInt(values[i]);
+            }
+            return state;
+        }
+
+        /**
+         * Waits until the session has run at least a number of ticks.
+         *
+         * @param tick The tick to wait for.
+         * @return The first state at or after the tick, or the last state read if it timed out.
+         * @throws IOException If the state could not be read.
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        private int[] awaitTick(int tick) throws IOException, InterruptedException {
+            int[] state = awaitState(values -> values[0] >= tick);
+            return state != null ? state : state();
+        }
+
+        /**
+         * Polls the state until it matches a condition.
+         *
+         * @param condition The condition to wait for.
+         * @return The first matching state, or null if it timed out.
+         * @throws IOException If the state could not be read.
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        private int[] awaitState(java.util.function.Predicate<int[]> condition) throws IOException, InterruptedException {
+            long deadline = System.nanoTime() + TIMEOUT_NANOS;
+            while(System.nanoTime() < deadline) {
+                int[] state = state();
+                if(condition.test(state)) {
+                    return state;
+                }
+                Thread.sleep(5);
+            }
+            return null;
+        }
+
+        /**
+         * Closes the connection.
+         *
+         * @throws IOException If the socket failed to close.
+         */
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * GameSession class:
+ * A single independent game hosted by the GameServer. The world is only ever ticked by
+ * the server's tick scheduler, while input arrives from the connection thread and is
+ * queued until the next tick. Ticks and state reads are synchronized on the session so
+ * a connection never sees a partially updated world.
+ */
+public class GameSession {
+    /**
+     * Unique identifier of the session within the server.
+     */
+    private final int id;
+    /**
+     * The game state being simulated for this session.
+     */
+    private final World world;
+
+    /**
+     * Creates a new session with its own world.
+     *
+     * @param id Unique identifier of the session within the server.
+     * @param seed The seed for the session's world.
+     */
+    public GameSession(int id, long seed) {
+        this(id, seed, null);
+    }
+
+    /**
+     * Creates a new session with its own world, recording its telemetry.
+     *
+     * @param id Unique identifier of the session within the server.
+     * @param seed The seed for the session's world.
+     * @param telemetry Where to publish the session's telemetry, or null to not record any.
+     */
+    public GameSession(int id, long seed, TelemetryWriter telemetry) {
+        this.id = id;
+        world = new World(seed);
+        if(telemetry != null) {
+            world.addEventListener(new SessionTelemetry(telemetry, id, world));
+        }
+    }
+
+    /**
+     * Steps the session's world forward. Only called by the tick scheduler.
+     *
+     * @param deltaTime Time since last update in ms.
+     */
+    public synchronized void tick(int deltaTime) {
+        world.tick(deltaTime);
+    }
+
+    /**
+     * Queues a key event to be applied on the next tick. Safe to call from any thread.
+     *
+     * @param keyCode The key that was pressed or released.
+     * @param isPressed True indicates the key is pressed, false indicates it has been released.
+     */
+    public void handleInput(int keyCode, boolean isPressed) {
+        world.queueInput(keyCode, isPressed);
+    }
+
+    /**
+     * Gets the state as of the most recent tick in the form:
+     * "tick score lives frogX frogY gameEnded" where the frog position is -1 -1 when there is no frog.
+     *
+     * @return The state after the most recent tick.
+     */
+    public synchronized String getState() {
+        Player player = world.getPlayer();
+        Frog frog = player.getCurrentFrog();
+        return world.getTickCount() + " " + player.getScore() + " " + player.getLives()
+                + " " + (frog == null ? -1 : frog.position.x) + " " + (frog == null ? -1 : frog.position.y)
+                + " " + (world.isGameEnded() ? 1 : 0);
+    }
+
+    /**
+     * Gets the identifier of the session.
+     *
+     * @return Unique identifier of the session within the server.
+     */
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * HighScoreStore class:
+ * A local leaderboard kept in an append-only file. Existing records are read through memory-mapped
+ * regions when the store is opened, and every score added is appended as a new record. Each record
+ * carries a CRC, so a record left half written by a crash is detected on the next open and the file
+ * is truncated back to the last good record without touching any earlier ones.
+ *
+ * The scores are indexed in memory by a Fenwick tree of counts per score, so adding a score and
+ * finding the rank of a score take logarithmic time, and the top K scores take K logarithmic steps,
+ * no matter how many millions of records the file holds.
+ *
+ * Format (big endian): the int MAGIC and the int VERSION, then every record as the time it was
+ * added in ms since the epoch as a long, the score as an int, and the CRC32 of those 12 bytes as an int.
+ */
+public class HighScoreStore implements AutoCloseable {
+    /**
+     * Identifies a high score file ("FRHS").
+     */
+    public static final int MAGIC = 0x46524853;
+    /**
+     * Version of the format written.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Largest score that can be stored, which bounds the size of the index.
+     */
+    public static final int MAX_SCORE = (1 << 22) - 1;
+    /**
+     * Size in bytes of the header before the first record.
+     */
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    /**
+     * Size in bytes of each record.
+     */
+    private static final int RECORD_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    /**
+     * Number of records in each region mapped while reading the file.
+     */
+    private static final int RECORDS_PER_REGION = 1 << 22;
+
+    /**
+     * Opens a store on a background thread so reading the file does not delay anything else.
+     *
+     * @param path The high score file. Created if it does not exist.
+     * @return Completes with the open store, or exceptionally if it could not be opened.
+     */
+    public static CompletableFuture<HighScoreStore> open(Path path) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return new HighScoreStore(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * The open high score file.
+     */
+    private final FileChannel channel;
+    /**
+     * Number of valid records in the file.
+     */
+    private long entryCount;
+    /**
+     * Fenwick tree of the number of records with each score, where score s is at index s + 1.
+     * The length is always one more than a power of two.
+     */
+    private int[] tree;
+    /**
+     * Used to calculate the CRC of each record.
+     */
+    private final CRC32 crc;
+    /**
+     * Reused buffer for appending records.
+     */
+    private final ByteBuffer recordBuffer;
+
+    /**
+     * Opens the file, reads every valid record into the index, and truncates anything after the
+     * first invalid record.
+     *
+     * @param path The high score file. Created if it does not exist.
+     * @throws IOException If the file could not be read or is not a high score file.
+     */
+    public HighScoreStore(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        crc = new CRC32();
+        recordBuffer = ByteBuffer.allocate(RECORD_BYTES);
+        tree = new int[1024 + 1];
+        try {
+            if(channel.size() < HEADER_BYTES) {
+                writeHeader();
+            } else {
+                readHeader(path);
+                readRecords();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a score to the file and adds it to the index. The record is forced to the disk
+     * before returning so it survives a crash.
+     *
+     * @param score The score to add, from 0 to MAX_SCORE.
+     * @throws IOException If the record could not be written.
+     */
+    public synchronized void add(int score) throws IOException {
+        if(score < 0 || score > MAX_SCORE) {
+            throw new IllegalArgumentException("Score must be from 0 to " + MAX_SCORE + ": " + score);
+        }
+        recordBuffer.clear();
+        recordBuffer.putLong(System.currentTimeMillis()).putInt(score);
+        recordBuffer.putInt(calculateCrc(recordBuffer, 0));
+        recordBuffer.flip();
+        long position = HEADER_BYTES + entryCount * RECORD_BYTES;
+        while(recordBuffer.hasRemaining()) {
+            position += channel.write(recordBuffer, position);
+        }
+        channel.force(false);
+        index(score);
+    }
+
+    /**
+     * Gets the number of scores stored.
+     *
+     * @return Number of valid records.
+     */
+    public synchronized long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the rank a score has on the leaderboard, where equal scores share a rank.
+     *
+     * @param score The score to rank.
+     * @return One more than the number of stored scores higher than the score.
+     */
+    public synchronized long getRank(int score) {
+        if(score < 0) {
+            return entryCount + 1;
+        }
+        int index = Math.min(score + 1, tree.length - 1);
+        return entryCount - prefixSum(index) + 1;
+    }
+
+    /**
+     * Gets the highest scores in descending order.
+     *
+     * @param k Most scores to return.
+     * @return Up to k of the highest scores, highest first.
+     */
+    public synchronized int[] getTopScores(int k) {
+        int count = (int)Math.min(k, entryCount);
+        int[] scores = new int[count];
+        for(int i = 0; i < count; i++) {
+            scores[i] = findNthSmallest(entryCount - i) - 1;
+        }
+        return scores;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file failed to close.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the header to an empty file, replacing any partial header left by a crash.
+     *
+     * @throws IOException If the header could not be written.
+     */
+    private void writeHeader() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while(header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Reads and checks the header.
+     *
+     * @param path The file being read, for error messages.
+     * @throws IOException If the file is not a high score file of a supported version.
+     */
+    private void readHeader(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+        header.flip();
+        if(header.getInt() != MAGIC) {
+            throw new IOException("Not a high score file: " + path);
+        }
+        int version = header.getInt();
+        if(version != VERSION) {
+            throw new IOException("Unsupported high score file version " + version);
+        }
+    }
+
+    /**
+     * Reads every record through mapped regions of the file, stopping at the first record that
+     * is incomplete, fails its CRC, or holds an invalid score, and truncating the file there.
+     *
+     * @throws IOException If the file could not be mapped or truncated.
+     */
+    private void readRecords() throws IOException {
+        long fileRecords = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        long validRecords = 0;
+        while(validRecords < fileRecords) {
+            int regionRecords = (int)Math.min(RECORDS_PER_REGION, fileRecords - validRecords);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + validRecords * RECORD_BYTES, (long)regionRecords * RECORD_BYTES);
+            int valid = 0;
+            while(valid < regionRecords) {
+                int offset = valid * RECORD_BYTES;
+                int score = region.getInt(offset + Long.BYTES);
+                if(region.getInt(offset + Long.BYTES + Integer.BYTES) != calculateCrc(region, offset)
+                        || score < 0 || score > MAX_SCORE) {
+                    break;
+                }
+                index(score);
+                valid++;
+            }
+            validRecords += valid;
+            if(valid < regionRecords) break;
+        }
+
+        long validSize = HEADER_BYTES + validRecords * RECORD_BYTES;
+        if(channel.size() > validSize) {
+            channel.truncate(validSize);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Calculates the CRC of the time and score of a record.
+     *
+     * @param buffer The buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @return The CRC32 of the first 12 bytes of the record.
+     */
+    private int calculateCrc(ByteBuffer buffer, int offset) {
+        ByteBuffer data = buffer.duplicate();
+        data.limit(offset + Long.BYTES + Integer.BYTES).position(offset);
+        crc.reset();
+        crc.update(data);
+        return (int)crc.getValue();
+    }
+
+    /**
+     * Counts a score in the index, growing the index when the score is beyond it.
+     *
+     * @param score The score to count.
+     */
+    private void index(int score) {
+        int size = tree.length - 1;
+        if(score >= size) {
+            int newSize = size;
+            while(newSize <= score) {
+                newSize <<= 1;
+            }
+            // Nodes up to the old size cover the same ranges as before, and of the new nodes only
+            // the powers of two cover any existing scores (all of them), so the rest start at 0.
+            int[] grown = new int[newSize + 1];
+            System.arraycopy(tree, 1, grown, 1, size);
+            for(int i = size << 1; i <= newSize; i <<= 1) {
+                grown[i] = (int)entryCount;
+            }
+            tree = grown;
+        }
+        for(int i = score + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+        entryCount++;
+    }
+
+    /**
+     * Gets the number of records with a score below the index.
+     *
+     * @param index Index in the tree, one more than the highest score counted.
+     * @return Number of records with a score from 0 up to index - 1.
+     */
+    private long prefixSum(int index) {
+        long sum = 0;
+        for(int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the nth smallest score by walking down the tree.
+     *
+     * @param n Position of the score from the lowest, from 1 to the entry count.
+     * @return Index in the tree of the score, which is one more than the score.
+     */
+    private int findNthSmallest(long n) {
+        int index = 0;
+        for(int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if(index + step < tree.length && tree[index + step] < n) {
+                index += step;
+                n -= tree[index];
+            }
+        }
+        return index + 1;
+    }
+}
@@ -0,0 +1,94 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * Hud class:
+ * Draws the remaining lives and the score in the score zone. They are drawn into a cached image
+ * layer that is only redrawn when the lives or score change. Not thread safe, so each thread that
+ * draws needs its own Hud.
+ */
+public class Hud {
+    /**
+     * Font used to draw the score.
+     */
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 20);
+
+    /**
+     * The score zone the lives and score are drawn in.
+     */
+    private final Rectangle scoreZone;
+    /**
+     * Cached image of the lives and score drawn in the score zone, or null before the first paint.
+     */
+    private BufferedImage layer;
+    /**
+     * The score and lives that the layer was last drawn with.
+     */
+    private int layerScore, layerLives;
+
+    /**
+     * Creates the HUD for a score zone.
+     *
+     * @param scoreZone The score zone to draw the lives and score in.
+     */
+    public Hud(Rectangle scoreZone) {
+        this.scoreZone = scoreZone;
+    }
+
+    /**
+     * Draws the lives and score, redrawing the cached layer first if either has changed.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     * @param score The score to show.
+     * @param lives Number of lives to show as frogs.
+     */
+    public void paint(Graphics g, int score, int lives) {
+        if(layer == null || layerScore != score || layerLives != lives) {
+            updateLayer(score, lives);
+        }
+        g.drawImage(layer, 0, scoreZone.position.y, null);
+    }
+
+    /**
+     * Redraws the lives and score into the layer, creating it the first time.
+     *
+     * @param score The score to show.
+     * @param lives Number of lives to show as frogs.
+     */
+    private void updateLayer(int score, int lives) {
+        int layerY = scoreZone.position.y;
+        if(layer == null) {
+            layer = new BufferedImage(GamePanel.PANEL_WIDTH, GamePanel.PANEL_HEIGHT - layerY, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g = layer.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        g.translate(0, -layerY);
+        for(int i = 0; i < lives; i++) {
+            new Frog(new Position(scoreZone.position.x + i * GamePanel.SEGMENT_HEIGHT, layerY),
+                    GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT).paint(g);
+        }
+        drawScore(g, score);
+        g.dispose();
+        layerScore = score;
+        layerLives = lives;
+    }
+
+    /**
+     * Draws the score in the bottom right corner.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     * @param score The score to show.
+     */
+    private void drawScore(Graphics g, int score) {
+        g.setColor(Color.WHITE);
+        g.setFont(SCORE_FONT);
+        String scoreStr = score + " :Score";
+        int strWidth = g.getFontMetrics().stringWidth(scoreStr);
+        g.drawString(scoreStr, GamePanel.PANEL_WIDTH-strWidth-15, scoreZone.position.y + 30);
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * LaneRing class:
+ * The lanes of endless mode held in a fixed-size ring buffer with one slot for each row from
+ * FIRST_ROW to LAST_ROW. When the frog climbs to SCROLL_ROW everything scrolls down one row:
+ * the lane that falls off the bottom is discarded and its slot is reused for a newly generated
+ * lane at the top. The lane values live in a LaneTable with one lane per slot, so memory stays
+ * the same no matter how long a run lasts.
+ */
+public class LaneRing {
+    /**
+     * Terrain of a row.
+     */
+    public static final int GRASS = 0, ROAD = 1, WATER = 2;
+    /**
+     * First and last rows that hold lanes.
+     */
+    public static final int FIRST_ROW = 1, LAST_ROW = 11;
+    /**
+     * When the frog reaches this row or above the lanes scroll down.
+     */
+    public static final int SCROLL_ROW = 6;
+    /**
+     * Score awarded for every row scrolled.
+     */
+    public static final int SCORE_PER_ROW = 10;
+    /**
+     * Number of slots in the ring.
+     */
+    private static final int SLOT_COUNT = LAST_ROW - FIRST_ROW + 1;
+    /**
+     * Number of objects spawned in every lane with obstacles.
+     */
+    private static final int OBJECTS_PER_LANE = 2;
+
+    /**
+     * Lane values for each slot, with one lane per slot.
+     */
+    private final LaneTable lanes;
+    /**
+     * Terrain of each slot.
+     */
+    private final int[] terrain;
+    /**
+     * The moving objects in each slot.
+     */
+    private final MovingObject[][] objects;
+    /**
+     * Slot holding the lane on FIRST_ROW.
+     */
+    private int head;
+    /**
+     * Random source for generating lanes.
+     */
+    private Random random;
+    /**
+     * Terrain of the block being generated and how many more rows it continues for.
+     */
+    private int blockTerrain, blockRowsRemaining;
+
+    /**
+     * Creates the ring with every slot empty. Call reset() before use.
+     */
+    public LaneRing() {
+        lanes = new LaneTable(SLOT_COUNT);
+        for(int i = 0; i < SLOT_COUNT; i++) {
+            lanes.addLane(FIRST_ROW + i, LaneTable.CAR, false, 0, 1, 0, 0, 0, 1, 1, 1);
+        }
+        terrain = new int[SLOT_COUNT];
+        objects = new MovingObject[SLOT_COUNT][];
+    }
+
+    /**
+     * Generates a fresh set of lanes for every row, from the bottom up.
+     *
+     * @param seed The seed for generating lanes and their objects.
+     */
+    public void reset(long seed) {
+        random = new Random(seed);
+        blockTerrain = GRASS;
+        blockRowsRemaining = 0;
+        head = 0;
+        for(int row = LAST_ROW; row >= FIRST_ROW; row--) {
+            generateLane(row - FIRST_ROW, row);
+        }
+    }
+
+    /**
+     * Scrolls every lane and the frog down one row, discarding the bottom lane and generating a new one at the top.
+     *
+     * @param frog The current frog, moved down with the lanes.
+     */
+    public void scroll(Frog frog) {
+        head = (head + SLOT_COUNT - 1) % SLOT_COUNT;
+        for(int i = 0; i < SLOT_COUNT; i++) {
+            int slot = (head + i) % SLOT_COUNT;
+            if(slot == head) continue;
+            lanes.setRow(slot, FIRST_ROW + i);
+            for(MovingObject object : objects[slot]) {
+                object.position.y += GamePanel.SEGMENT_HEIGHT;
+            }
+        }
+        generateLane(head, FIRST_ROW);
+        frog.position.y += GamePanel.SEGMENT_HEIGHT;
+    }
+
+    /**
+     * Adds every live object to the list, from the top row down.
+     *
+     * @param objectList The list to add the objects to.
+     */
+    public void addObjects(List<MovingObject> objectList) {
+        for(int i = 0; i < SLOT_COUNT; i++) {
+            for(MovingObject object : objects[(head + i) % SLOT_COUNT]) {
+                objectList.add(object);
+            }
+        }
+    }
+
+    /**
+     * Gets the terrain of a row.
+     *
+     * @param row The row on screen.
+     * @return One of GRASS, ROAD, or WATER. Rows without lanes are GRASS.
+     */
+    public int getTerrain(int row) {
+        if(row < FIRST_ROW || row > LAST_ROW) {
+            return GRASS;
+        }
+        return terrain[(head + row - FIRST_ROW) % SLOT_COUNT];
+    }
+
+    /**
+     * Replaces the lane in a slot with a newly generated one. Roads and water come in blocks
+     * of up to four rows with a row of grass between blocks.
+     *
+     * @param slot The slot to generate into.
+     * @param row The row the slot is on.
+     */
+    private void generateLane(int slot, int row) {
+        if(blockRowsRemaining == 0) {
+            if(blockTerrain == GRASS) {
+                blockTerrain = random.nextBoolean() ? ROAD : WATER;
+                blockRowsRemaining = 1 + random.nextInt(4);
+            } else {
+                blockTerrain = GRASS;
+                blockRowsRemaining = 1;
+            }
+        }
+        blockRowsRemaining--;
+        terrain[slot] = blockTerrain;
+
+        boolean isMovingLeft = random.nextBoolean();
+        int offset = random.nextInt(3);
+        if(blockTerrain == ROAD) {
+            lanes.setLane(slot, row, LaneTable.CAR, isMovingLeft, 2 + random.nextInt(3), 30 + random.nextInt(30),
+                    OBJECTS_PER_LANE, offset, 5, 2, 3, 3);
+        } else if(blockTerrain == WATER) {
+            boolean isLog = random.nextBoolean();
+            lanes.setLane(slot, row, isLog ? LaneTable.LOG : LaneTable.TURTLE, isMovingLeft, GamePanel.SEGMENT_HEIGHT,
+                    800 + random.nextInt(500), OBJECTS_PER_LANE, offset, 5, isLog ? 2 : 1, isLog ? 4 : 3, isLog ? 5 : 3);
+        } else {
+            lanes.setLane(slot, row, LaneTable.CAR, false, 0, 1, 0, 0, 0, 1, 1, 1);
+        }
+
+        objects[slot] = new MovingObject[lanes.getObjectCount(slot)];
+        for(int i = 0; i < objects[slot].length; i++) {
+            objects[slot][i] = World.createMovingObject(lanes, slot, i, random);
+        }
+    }
+}
@@ -0,0 +1,497 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * LaneTable class:
+ * A level compiled into compact per-lane arrays. Each lane spawns a number of moving objects
+ * of one type along one row, and the moving objects read their speed and width ranges
+ * straight from the table.
+ *
+ * Levels are text files with one lane per line and # starting a comment:
+ * "row type direction distance delay count offset spacing minWidth maxWidth entry"
+ * - row: The row the lane travels along.
+ * - type: car, log, or turtle.
+ * - direction: left or right.
+ * - distance: Pixels moved each time the delay passes. A suffix of s means segments.
+ * - delay: Time in ms between movements.
+ * - count: Number of objects spawned in the lane.
+ * - offset: Segments behind the spawn point of the first object, in the direction of travel.
+ * - spacing: Segments between the spawn point of each object.
+ * - minWidth, maxWidth: Range of segments each object's width is randomly chosen from.
+ * - entry: Segments off the left edge that objects moving right re-enter at when reset.
+ * None of the numbers may be negative, the delay must be at least 1 ms, and the width range must
+ * start at 1 or more. Any other value fails to parse with the line it is on.
+ */
+public class LaneTable {
+    /**
+     * Types of objects that a lane can contain.
+     */
+    public static final int CAR = 0, LOG = 1, TURTLE = 2;
+    /**
+     * Names of the types as written in level files, indexed by type.
+     */
+    private static final String[] TYPE_NAMES = { "car", "log", "turtle" };
+    /**
+     * Number of values on each lane line.
+     */
+    private static final int VALUES_PER_LANE = 11;
+    /**
+     * Resource holding the original level layout.
+     */
+    private static final String DEFAULT_LEVEL = "/default.level";
+
+    /**
+     * The level loaded from DEFAULT_LEVEL, loaded the first time it is needed.
+     */
+    private static LaneTable defaultLevel;
+
+    /**
+     * Number of lanes in the table.
+     */
+    private int laneCount;
+    /**
+     * Values for each lane indexed by lane.
+     */
+    private int[] row, type, moveDistance, moveDelay, objectCount, offset, spacing, minWidth, maxWidth, entry;
+    /**
+     * True for lanes where the objects move left.
+     */
+    private boolean[] movingLeft;
+
+    /**
+     * Creates an empty table ready for lanes to be added.
+     *
+     * @param capacity Number of lanes to allocate space for up front.
+     */
+    public LaneTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        row = new int[capacity];
+        type = new int[capacity];
+        moveDistance = new int[capacity];
+        moveDelay = new int[capacity];
+        objectCount = new int[capacity];
+        offset = new int[capacity];
+        spacing = new int[capacity];
+        minWidth = new int[capacity];
+        maxWidth = new int[capacity];
+        entry = new int[capacity];
+        movingLeft = new boolean[capacity];
+    }
+
+    /**
+     * Gets the level the game was originally designed with.
+     *
+     * @return The default level.
+     */
+    public static synchronized LaneTable getDefault() {
+        if(defaultLevel == null) {
+            try(InputStream in = LaneTable.class.getResourceAsStream(DEFAULT_LEVEL)) {
+                if(in == null) {
+                    throw new IOException("Missing resource " + DEFAULT_LEVEL);
+                }
+                defaultLevel = parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return defaultLevel;
+    }
+
+    /**
+     * Loads and compiles a level file.
+     *
+     * @param path The level file to load.
+     * @return The compiled level.
+     * @throws IOException If the file could not be read or is not a valid level.
+     */
+    public static LaneTable load(Path path) throws IOException {
+        try(Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Compiles a level from text in the level file format.
+     *
+     * @param reader Where to read the level from.
+     * @return The compiled level.
+     * @throws IOException If the level could not be read or is not valid.
+     */
+    public static LaneTable parse(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        LaneTable table = new LaneTable(16);
+        String line;
+        int lineNumber = 0;
+        while((line = in.readLine()) != null) {
+            lineNumber++;
+            int commentStart = line.indexOf('#');
+            if(commentStart >= 0) {
+                line = line.substring(0, commentStart);
+            }
+            line = line.trim();
+            if(line.isEmpty()) continue;
+
+            String[] values = line.split("\\s+");
+            if(values.length != VALUES_PER_LANE) {
+                throw new IOException("Line " + lineNumber + ": expected " + VALUES_PER_LANE + " values but found " + values.length);
+            }
+            try {
+                int laneType = parseType(values[1]);
+                boolean isMovingLeft = parseDirection(values[2]);
+                int laneMinWidth = Integer.parseInt(values[8]);
+                int laneMaxWidth = Integer.parseInt(values[9]);
+                if(laneMinWidth < 1 || laneMaxWidth < laneMinWidth) {
+                    throw new IllegalArgumentException("invalid width range " + laneMinWidth + " to " + laneMaxWidth);
+                }
+                int laneMoveDistance = parseDistance(values[3]);
+                if(laneMoveDistance < 0) {
+                    throw new IllegalArgumentException("invalid distance " + values[3] + ", must not be negative");
+                }
+                table.addLane(parseAtLeast(values[0], 0, "row"), laneType, isMovingLeft, laneMoveDistance,
+                        parseAtLeast(values[4], 1, "delay"), parseAtLeast(values[5], 0, "count"),
+                        parseAtLeast(values[6], 0, "offset"), parseAtLeast(values[7], 0, "spacing"),
+                        laneMinWidth, laneMaxWidth, parseAtLeast(values[10], 0, "entry"));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Adds a lane to the end of the table.
+     *
+     * @param laneRow The row the lane travels along.
+     * @param laneType One of CAR, LOG, or TURTLE.
+     * @param isMovingLeft When true the objects move left, otherwise right.
+     * @param laneMoveDistance Pixels moved each time the delay passes.
+     * @param laneMoveDelay Time in ms between movements.
+     * @param laneObjectCount Number of objects spawned in the lane.
+     * @param laneOffset Segments behind the spawn point of the first object.
+     * @param laneSpacing Segments between the spawn point of each object.
+     * @param laneMinWidth Smallest width in segments.
+     * @param laneMaxWidth Largest width in segments.
+     * @param laneEntry Segments off the left edge that objects moving right re-enter at.
+     * @return The index of the new lane.
+     */
+    public int addLane(int laneRow, int laneType, boolean isMovingLeft, int laneMoveDistance, int laneMoveDelay,
+                       int laneObjectCount, int laneOffset, int laneSpacing, int laneMinWidth, int laneMaxWidth, int laneEntry) {
+        if(laneCount == row.length) {
+            grow();
+        }
+        int lane = laneCount++;
+        setLane(lane, laneRow, laneType, isMovingLeft, laneMoveDistance, laneMoveDelay, laneObjectCount,
+                laneOffset, laneSpacing, laneMinWidth, laneMaxWidth, laneEntry);
+        return lane;
+    }
+
+    /**
+     * Replaces every value of an existing lane. Objects already created for the lane will
+     * use the new speed and widths from their next update or reset.
+     *
+     * @param lane Index of the lane to replace.
+     * @param laneRow The row the lane travels along.
+     * @param laneType One of CAR, LOG, or TURTLE.
+     * @param isMovingLeft When true the objects move left, otherwise right.
+     * @param laneMoveDistance Pixels moved each time the delay passes.
+     * @param laneMoveDelay Time in ms between movements.
+     * @param laneObjectCount Number of objects spawned in the lane.
+     * @param laneOffset Segments behind the spawn point of the first object.
+     * @param laneSpacing Segments between the spawn point of each object.
+     * @param laneMinWidth Smallest width in segments.
+     * @param laneMaxWidth Largest width in segments.
+     * @param laneEntry Segments off the left edge that objects moving right re-enter at.
+     */
+    public void setLane(int lane, int laneRow, int laneType, boolean isMovingLeft, int laneMoveDistance, int laneMoveDelay,
+                        int laneObjectCount, int laneOffset, int laneSpacing, int laneMinWidth, int laneMaxWidth, int laneEntry) {
+        row[lane] = laneRow;
+        type[lane] = laneType;
+        movingLeft[lane] = isMovingLeft;
+        moveDistance[lane] = laneMoveDistance;
+        moveDelay[lane] = laneMoveDelay;
+        objectCount[lane] = laneObjectCount;
+        offset[lane] = laneOffset;
+        spacing[lane] = laneSpacing;
+        minWidth[lane] = laneMinWidth;
+        maxWidth[lane] = laneMaxWidth;
+        entry[lane] = laneEntry;
+    }
+
+    /**
+     * Creates a copy of the table, so changes to the tuning of either never reach the other.
+     *
+     * @return A new table with the same lanes.
+     */
+    public LaneTable copy() {
+        LaneTable copy = new LaneTable(laneCount);
+        for(int lane = 0; lane < laneCount; lane++) {
+            copy.addLane(row[lane], type[lane], movingLeft[lane], moveDistance[lane], moveDelay[lane], objectCount[lane],
+                    offset[lane], spacing[lane], minWidth[lane], maxWidth[lane], entry[lane]);
+        }
+        return copy;
+    }
+
+    /**
+     * Checks if another table has the same lanes, with each lane on the same row with the same
+     * type and direction, so its tuning can be copied into this table.
+     *
+     * @param other The table to compare with.
+     * @return True if only the tuning of the lanes differs.
+     */
+    public boolean hasSameLanes(LaneTable other) {
+        if(other.laneCount != laneCount) return false;
+        for(int lane = 0; lane < laneCount; lane++) {
+            if(other.row[lane] != row[lane] || other.type[lane] != type[lane] || other.movingLeft[lane] != movingLeft[lane]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the speed, spawning, and width values of every lane from another table with the
+     * same lanes. Objects already created pick up the new distance straight away, delays once
+     * their timers are set again, and widths and entry points from their next reset. The count,
+     * offset, and spacing are only used when a lane's objects are spawned, so World.applyLaneTuning()
+     * respawns the lanes where they changed.
+     *
+     * @param other A table where hasSameLanes() is true.
+     */
+    public void copyTuning(LaneTable other) {
+        if(!hasSameLanes(other)) {
+            throw new IllegalArgumentException("The lanes differ by more than their tuning");
+        }
+        for(int lane = 0; lane < laneCount; lane++) {
+            setLane(lane, row[lane], type[lane], movingLeft[lane], other.moveDistance[lane], other.moveDelay[lane],
+                    other.objectCount[lane], other.offset[lane], other.spacing[lane], other.minWidth[lane],
+                    other.maxWidth[lane], other.entry[lane]);
+        }
+    }
+
+    /**
+     * Gets the number of lanes.
+     *
+     * @return Number of lanes in the table.
+     */
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return The row the lane travels along.
+     */
+    public int getRow(int lane) {
+        return row[lane];
+    }
+
+    /**
+     * Moves a lane to a different row without changing anything else.
+     *
+     * @param lane Index of the lane.
+     * @param laneRow The new row the lane travels along.
+     */
+    public void setRow(int lane, int laneRow) {
+        row[lane] = laneRow;
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return One of CAR, LOG, or TURTLE.
+     */
+    public int getType(int lane) {
+        return type[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return True when the objects in the lane move left.
+     */
+    public boolean isMovingLeft(int lane) {
+        return movingLeft[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Pixels moved each time the delay passes.
+     */
+    public int getMoveDistance(int lane) {
+        return moveDistance[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Time in ms between movements.
+     */
+    public int getMoveDelay(int lane) {
+        return moveDelay[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Number of objects spawned in the lane.
+     */
+    public int getObjectCount(int lane) {
+        return objectCount[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Segments behind the spawn point of the first object.
+     */
+    public int getOffset(int lane) {
+        return offset[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Segments between the spawn point of each object.
+     */
+    public int getSpacing(int lane) {
+        return spacing[lane];
+    }
+
+    /**
+     * Gets the X offset from the default spawn point for one of the objects in a lane.
+     *
+     * @param lane Index of the lane.
+     * @param objectIndex Which of the lane's objects, from 0.
+     * @return Offset in pixels, behind the spawn point in the direction of travel.
+     */
+    public int getSpawnOffsetX(int lane, int objectIndex) {
+        int segments = offset[lane] + objectIndex * spacing[lane];
+        return (movingLeft[lane] ? segments : -segments) * GamePanel.SEGMENT_HEIGHT;
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Smallest width in segments.
+     */
+    public int getMinWidth(int lane) {
+        return minWidth[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Largest width in segments.
+     */
+    public int getMaxWidth(int lane) {
+        return maxWidth[lane];
+    }
+
+    /**
+     * @param lane Index of the lane.
+     * @return Segments off the left edge that objects moving right re-enter at.
+     */
+    public int getEntry(int lane) {
+        return entry[lane];
+    }
+
+    /**
+     * Gets a random width from the lane's range.
+     *
+     * @param lane Index of the lane.
+     * @param random Random source to draw the width from.
+     * @return A number of segments between the minimum and maximum width inclusive.
+     */
+    public int getRandomWidth(int lane, Random random) {
+        return minWidth[lane] + random.nextInt(maxWidth[lane] - minWidth[lane] + 1);
+    }
+
+    /**
+     * Gets the name used for a type in level files.
+     *
+     * @param laneType One of CAR, LOG, or TURTLE.
+     * @return The name of the type.
+     */
+    public static String getTypeName(int laneType) {
+        return TYPE_NAMES[laneType];
+    }
+
+    /**
+     * Doubles the space available for lanes.
+     */
+    private void grow() {
+        int capacity = row.length * 2;
+        row = Arrays.copyOf(row, capacity);
+        type = Arrays.copyOf(type, capacity);
+        moveDistance = Arrays.copyOf(moveDistance, capacity);
+        moveDelay = Arrays.copyOf(moveDelay, capacity);
+        objectCount = Arrays.copyOf(objectCount, capacity);
+        offset = Arrays.copyOf(offset, capacity);
+        spacing = Arrays.copyOf(spacing, capacity);
+        minWidth = Arrays.copyOf(minWidth, capacity);
+        maxWidth = Arrays.copyOf(maxWidth, capacity);
+        entry = Arrays.copyOf(entry, capacity);
+        movingLeft = Arrays.copyOf(movingLeft, capacity);
+    }
+
+    /**
+     * Converts a type name to its type.
+     *
+     * @param name The name from the level file.
+     * @return One of CAR, LOG, or TURTLE.
+     */
+    private static int parseType(String name) {
+        for(int i = 0; i < TYPE_NAMES.length; i++) {
+            if(TYPE_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unknown lane type " + name);
+    }
+
+    /**
+     * Converts a direction name to whether it is moving left.
+     *
+     * @param name Either left or right.
+     * @return True for left.
+     */
+    private static boolean parseDirection(String name) {
+        if(name.equalsIgnoreCase("left")) return true;
+        if(name.equalsIgnoreCase("right")) return false;
+        throw new IllegalArgumentException("unknown direction " + name);
+    }
+
+    /**
+     * Converts a whole number, checking it is not below a minimum.
+     *
+     * @param value The number from the level file.
+     * @param minimum The smallest valid value.
+     * @param name Name of the value for the error message.
+     * @return The number.
+     * @throws IllegalArgumentException If the value is not a number or is below the minimum.
+     */
+    private static int parseAtLeast(String value, int minimum, String name) {
+        int number = Integer.parseInt(value);
+        if(number < minimum) {
+            throw new IllegalArgumentException("invalid " + name + " " + number + ", must be at least " + minimum);
+        }
+        return number;
+    }
+
+    /**
+     * Converts a distance in pixels, or segments when followed by s, to pixels.
+     *
+     * @param value The distance from the level file.
+     * @return The distance in pixels.
+     */
+    private static int parseDistance(String value) {
+        if(value.endsWith("s")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1)) * GamePanel.SEGMENT_HEIGHT;
+        }
+        return Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * LaneTuningCheck class:
+ * Checks that live lane tuning stays within the World it is queued on. Two worlds are created on
+ * the default level with the same seed, the first is retuned so every lane moves twice as far, and
+ * both are ticked. The second world's lanes, the default level itself, and a world created after
+ * the retune must all keep the original tuning, and the second world's objects must move exactly
+ * as an untouched world's do. Exits with 1 if any check fails.
+ */
+public class LaneTuningCheck {
+    /**
+     * Seed every world is created with.
+     */
+    private static final long SEED = 42;
+    /**
+     * Number of ticks run after the tuning is queued.
+     */
+    private static final int TICKS = 200;
+
+    /**
+     * Number of checks that failed.
+     */
+    private static int failures;
+
+    /**
+     * Runs every check and prints the result of each.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        LaneTable original = LaneTable.getDefault().copy();
+        World retuned = new World(SEED);
+        World other = new World(SEED);
+        World reference = new World(SEED);
+
+        LaneTable tuning = original.copy();
+        for(int lane = 0; lane < tuning.getLaneCount(); lane++) {
+            tuning.setLane(lane, tuning.getRow(lane), tuning.getType(lane), tuning.isMovingLeft(lane),
+                    tuning.getMoveDistance(lane) * 2, tuning.getMoveDelay(lane), tuning.getObjectCount(lane),
+                    tuning.getOffset(lane), tuning.getSpacing(lane), tuning.getMinWidth(lane),
+                    tuning.getMaxWidth(lane), tuning.getEntry(lane));
+        }
+        retuned.queueLaneTuning(tuning);
+        for(int i = 0; i < TICKS; i++) {
+            retuned.tick(GamePanel.TIME_INTERVAL);
+            other.tick(GamePanel.TIME_INTERVAL);
+            reference.tick(GamePanel.TIME_INTERVAL);
+        }
+
+        check("the retuned world uses the new tuning", hasSameTuning(retuned.getLanes(), tuning));
+        check("each world has its own lanes", retuned.getLanes() != other.getLanes()
+                && other.getLanes() != LaneTable.getDefault());
+        check("another world on the same level keeps its tuning", hasSameTuning(other.getLanes(), original));
+        check("the default level keeps its tuning", hasSameTuning(LaneTable.getDefault(), original));
+        check("a world created after the retune keeps the original tuning",
+                hasSameTuning(new World(SEED).getLanes(), original));
+        check("another world's objects move as if nothing was retuned",
+                haveSamePositions(other.getObjectList(), reference.getObjectList()));
+        check("the retuned world's objects move differently",
+                !haveSamePositions(retuned.getObjectList(), reference.getObjectList()));
+
+        System.out.println(failures == 0 ? "All checks passed" : failures + " checks failed");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the result of a check and counts it if it failed.
+     *
+     * @param name What was checked.
+     * @param passed True if the check passed.
+     */
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+     * Compares the tuning of every lane in two tables with the same lanes.
+     *
+     * @param lanes The table to check.
+     * @param expected The table with the expected tuning.
+     * @return True if every tuned value matches.
+     */
+    private static boolean hasSameTuning(LaneTable lanes, LaneTable expected) {
+        if(!lanes.hasSameLanes(expected)) {
+            return false;
+        }
+        for(int lane = 0; lane < lanes.getLaneCount(); lane++) {
+            if(lanes.getMoveDistance(lane) != expected.getMoveDistance(lane)
+                    || lanes.getMoveDelay(lane) != expected.getMoveDelay(lane)
+                    || lanes.getObjectCount(lane) != expected.getObjectCount(lane)
+                    || lanes.getOffset(lane) != expected.getOffset(lane)
+                    || lanes.getSpacing(lane) != expected.getSpacing(lane)
+                    || lanes.getMinWidth(lane) != expected.getMinWidth(lane)
+                    || lanes.getMaxWidth(lane) != expected.getMaxWidth(lane)
+                    || lanes.getEntry(lane) != expected.getEntry(lane)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the positions of the moving objects of two worlds.
+     *
+     * @param objects The objects of one world.
+     * @param expected The objects of the other world.
+     * @return True if every object is at the same position.
+     */
+    private static boolean haveSamePositions(List<MovingObject> objects, List<MovingObject> expected) {
+        if(objects.size() != expected.size()) {
+            return false;
+        }
+        for(int i = 0; i < objects.size(); i++) {
+            if(objects.get(i).position.x != expected.get(i).position.x
+                    || objects.get(i).position.y != expected.get(i).position.y) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * LaneUpdater class:
+ * Groups the moving objects into lanes by their row and updates/resets them.
+ * Lanes never interact with each other, so on boards with many lanes the work is
+ * split across the worker threads of a ForkJoinPool. update() only returns once every
+ * lane has finished, so it acts as the barrier before the player is resolved.
+ */
+public class LaneUpdater {
+    /**
+     * Minimum number of lanes before updates are spread across threads. Below this the
+     * cost of handing off work is more than the update itself.
+     */
+    public static final int PARALLEL_LANE_THRESHOLD = 64;
+    /**
+     * Number of lanes each worker task will update without splitting further.
+     */
+    private static final int LANES_PER_TASK = 16;
+
+    /**
+     * The pool used for parallel lane updates.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * The moving objects grouped by the row they travel along, in the order they were first found.
+     */
+    private MovingObject[][] lanes;
+
+    /**
+     * Creates an updater that uses the common pool so all cores can be used.
+     */
+    public LaneUpdater() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an updater that will use the specified pool for parallel updates.
+     *
+     * @param pool The pool to run lane updates on.
+     */
+    public LaneUpdater(ForkJoinPool pool) {
+        this.pool = pool;
+        lanes = new MovingObject[0][];
+    }
+
+    /**
+     * Regroups the objects into lanes. Must be called whenever the list of objects changes.
+     *
+     * @param objects All the moving objects to be updated.
+     */
+    public void setObjects(List<MovingObject> objects) {
+        Map<Integer, List<MovingObject>> rows = new LinkedHashMap<>();
+        for(MovingObject object : objects) {
+            rows.computeIfAbsent(object.position.y, row -> new ArrayList<>()).add(object);
+        }
+        lanes = new MovingObject[rows.size()][];
+        int laneIndex = 0;
+        for(List<MovingObject> lane : rows.values()) {
+            lanes[laneIndex++] = lane.toArray(new MovingObject[0]);
+        }
+    }
+
+    /**
+     * Updates every lane, resetting any objects that have expired. Runs on the calling
+     * thread for small boards, otherwise across the pool and waits for all lanes to finish.
+     *
+     * @param deltaTime Time since last update.
+     */
+    public void update(int deltaTime) {
+        if(lanes.length < PARALLEL_LANE_THRESHOLD) {
+            updateLanes(0, lanes.length, deltaTime);
+        } else {
+            pool.invoke(new LaneTask(0, lanes.length, deltaTime));
+        }
+    }
+
+    /**
+     * Gets the number of lanes found during the last setObjects().
+     *
+     * @return The number of lanes.
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Updates a range of lanes on the current thread.
+     *
+     * @param start First lane to update.
+     * @param end The lane after the last one to update.
+     * @param deltaTime Time since last update.
+     */
+    private void updateLanes(int start, int end, int deltaTime) {
+        for(int i = start; i < end; i++) {
+            for(MovingObject object : lanes[i]) {
+                object.update(deltaTime);
+                if(object.isExpired()) {
+                    object.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the range of lanes in half until it is small enough to update directly.
+     */
+    private class LaneTask extends RecursiveAction {
+        /**
+         * Version of the serialized form, which is never used but declared as RecursiveAction is Serializable.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * First lane, and the lane after the last lane in this task.
+         */
+        private final int start, end;
+        /**
+         * Time since last update.
+         */
+        private final int deltaTime;
+
+        /**
+         * @param start First lane to update.
+         * @param end The lane after the last one to update.
+         * @param deltaTime Time since last update.
+         */
+        LaneTask(int start, int end, int deltaTime) {
+            this.start = start;
+            this.end = end;
+            this.deltaTime = deltaTime;
+        }
+
+        /**
+         * Updates the lanes directly or forks two halves and waits for both.
+         */
+        @Override
+        protected void compute() {
+            if(end - start <= LANES_PER_TASK) {
+                updateLanes(start, end, deltaTime);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new LaneTask(start, middle, deltaTime), new LaneTask(middle, end, deltaTime));
+            }
+        }
+    }
+}
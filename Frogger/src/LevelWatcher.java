@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * LevelWatcher class:
+ * Watches the level file of a running World and applies the lane tuning whenever the file is
+ * saved, so the speeds, delays, spacing, and width ranges can be tuned while playing. The file is
+ * watched with a WatchService and parsed on the watcher's own thread, and the new LaneTable is
+ * queued on the World, which copies it into its lanes at the start of its next tick. The tick
+ * thread never waits on the file, and every lane changes between the same two ticks. Lanes whose
+ * object count, offset, or spacing changed are respawned straight away with the new layout.
+ *
+ * Only the tuning of existing lanes can change. A file that fails to parse, or that adds, removes,
+ * or moves lanes or changes their type or direction, is reported and ignored until it is saved again.
+ */
+public class LevelWatcher implements AutoCloseable {
+    /**
+     * Time in ms to wait after a change for any more changes, since editors often write a file in
+     * several steps.
+     */
+    private static final int SETTLE_DELAY = 100;
+
+    /**
+     * The level file being watched.
+     */
+    private final Path levelFile;
+    /**
+     * The world the tuning is applied to.
+     */
+    private final World world;
+    /**
+     * Watches the directory of the level file.
+     */
+    private final WatchService watchService;
+    /**
+     * Thread that waits for changes and parses the file.
+     */
+    private final Thread watcherThread;
+    /**
+     * Number of times tuning has been queued on the world.
+     */
+    private volatile int reloadCount;
+
+    /**
+     * Starts watching a level file on a background thread.
+     *
+     * @param levelFile The level file the world was loaded from.
+     * @param world The world to apply the tuning to. Its lanes must come from a LaneTable.
+     * @throws IOException If the file's directory could not be watched.
+     */
+    public LevelWatcher(Path levelFile, World world) throws IOException {
+        if(world.getLanes() == null) {
+            throw new IllegalArgumentException("Only lanes from a LaneTable can be retuned");
+        }
+        this.levelFile = levelFile.toAbsolutePath();
+        this.world = world;
+        watchService = FileSystems.getDefault().newWatchService();
+        this.levelFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watcherThread = new Thread(this::watchLoop, "frogger-level-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * Gets the number of times the file has been reloaded and its tuning queued on the world.
+     *
+     * @return Number of successful reloads.
+     */
+    public int getReloadCount() {
+        return reloadCount;
+    }
+
+    /**
+     * Stops watching the file and waits for the watcher thread to finish.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+            watcherThread.join();
+        } catch (IOException e) {
+            System.err.println("Failed to stop watching " + levelFile + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for changes to the level file and reloads it after each, until the watch service is closed.
+     */
+    private void watchLoop() {
+        try {
+            while(true) {
+                WatchKey key = watchService.take();
+                boolean isChanged = hasLevelFileEvent(key);
+                // Gather the rest of the changes from the same save before reading the file.
+                while(isChanged && (key = watchService.poll(SETTLE_DELAY, TimeUnit.MILLISECONDS)) != null) {
+                    hasLevelFileEvent(key);
+                }
+                if(isChanged) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed, so stop watching.
+        }
+    }
+
+    /**
+     * Checks the events of a key for a change to the level file and resets the key to receive more events.
+     *
+     * @param key The key with events.
+     * @return True if any event was for the level file.
+     */
+    private boolean hasLevelFileEvent(WatchKey key) {
+        boolean isLevelFile = false;
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || levelFile.getFileName().equals(event.context())) {
+                isLevelFile = true;
+            }
+        }
+        key.reset();
+        return isLevelFile;
+    }
+
+    /**
+     * Parses the level file and queues its tuning on the world, reporting any problem instead.
+     */
+    private void reload() {
+        try {
+            world.queueLaneTuning(LaneTable.load(levelFile));
+            reloadCount++;
+            System.out.println("Reloaded lane tuning from " + levelFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to reload " + levelFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.util.Random;
 
 /**
  * Frogger
@@ -12,28 +13,20 @@ public class Log extends MovingObject {
      * The different colour used for the end at the direction the log is travelling.
      */
     private final Color endColour = new Color(94, 63, 24);
-    /**
-     * The distance moved during each move in pixels.
-     */
-    private static final int MOVE_DISTANCE = GamePanel.SEGMENT_HEIGHT;
-    /**
-     * The delay between moves in ms.
-     */
-    private static final int MOVE_DELAY = 1200;
 
     /**
-     * Initialises a log to move in the defined direction. Logs are safe to travel on.
+     * Initialises a log to move in the direction defined by its lane. Logs are safe to travel on.
      *
+     * @param lanes The level the log's lane is defined in.
+     * @param lane Index of the lane that defines the row, direction, speed, and widths.
      * @param offsetX Position to offset the X coordinate from default spawning.
-     * @param yRow The row to set as a vertical position.
      * @param unitWidth Number of segments. Used to determine the length.
-     * @param isMovingLeft When true the car will move left, otherwise it will move right.
+     * @param random Random source used when resetting.
      */
-    public Log(int offsetX, int yRow, int unitWidth, boolean isMovingLeft) {
-        super(new Position(offsetX-unitWidth*GamePanel.SEGMENT_HEIGHT,
-                        yRow*GamePanel.SEGMENT_HEIGHT+(GamePanel.SEGMENT_HEIGHT-MovingObject.OBJECT_HEIGHT)/2),
-                    unitWidth * GamePanel.SEGMENT_HEIGHT, new Color(135, 91, 35),
-                            isMovingLeft, MOVE_DISTANCE, MOVE_DELAY);
+    public Log(LaneTable lanes, int lane, int offsetX, int unitWidth, Random random) {
+        super(lanes, lane, new Position(offsetX-unitWidth*GamePanel.SEGMENT_HEIGHT,
+                        lanes.getRow(lane)*GamePanel.SEGMENT_HEIGHT+(GamePanel.SEGMENT_HEIGHT-MovingObject.OBJECT_HEIGHT)/2),
+                unitWidth * GamePanel.SEGMENT_HEIGHT, new Color(135, 91, 35), random);
         isSafe = true;
     }
 
@@ -58,26 +51,7 @@ public class Log extends MovingObject {
     @Override
     public void reset() {
         super.reset();
-        width = getRandomSegmentLength() * GamePanel.SEGMENT_HEIGHT;
-        position.x = moveDirection.equals(Position.RIGHT) ? -(getMaxLength() * GamePanel.SEGMENT_HEIGHT)
-                                :(GamePanel.PANEL_WIDTH/GamePanel.SEGMENT_HEIGHT+1)*(GamePanel.SEGMENT_HEIGHT);
-    }
-
-    /**
-     * Gets a valid random length for a log.
-     *
-     * @return A number between 1 and 4
-     */
-    public static int getRandomSegmentLength() {
-        return (int)(Math.random()*4+1);
-    }
-
-    /**
-     * Gets the maximum length a log can be.
-     *
-     * @return The maximum length a log can be.
-     */
-    public static int getMaxLength() {
-        return 5;
+        width = lanes.getRandomWidth(lane, random) * GamePanel.SEGMENT_HEIGHT;
+        position.x = getResetPositionX();
     }
 }
@@ -0,0 +1,103 @@
+import java.awt.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * MappedBackground class:
+ * The background for a World on a MappedLevel. The World scrolls the level down the screen as the
+ * frog climbs and fills in the terrain of each row on screen from the lanes on it. Once the top
+ * of the level is on screen the end zone with the lilies is drawn on the top row, the same as on
+ * the fixed board.
+ */
+public class MappedBackground extends EndlessBackground {
+    /**
+     * The terrain of every row on screen from 0 to the spawn row, filled in by the World.
+     */
+    private final int[] rowTerrain;
+    /**
+     * The lilies of the end zone, the same as on the fixed board.
+     */
+    private final List<Rectangle> lilies;
+    /**
+     * True when the top row of the screen is the end zone at the top of the level.
+     */
+    private boolean isEndZoneVisible;
+
+    /**
+     * Creates the background with every row as grass until the World fills in the terrain.
+     */
+    public MappedBackground() {
+        this(new int[Player.SPAWN_ROW + 1], false);
+    }
+
+    /**
+     * Creates the background drawing the terrain from an array.
+     *
+     * @param rowTerrain The terrain of every row on screen from 0 to the spawn row.
+     * @param isEndZoneVisible True when the top row is the end zone.
+     */
+    private MappedBackground(int[] rowTerrain, boolean isEndZoneVisible) {
+        super(rowTerrain);
+        this.rowTerrain = rowTerrain;
+        this.isEndZoneVisible = isEndZoneVisible;
+        lilies = new Background().getLilies();
+    }
+
+    /**
+     * Sets the terrain of a row on screen.
+     *
+     * @param row The row on screen, from 0 to the spawn row.
+     * @param terrain One of LaneRing.GRASS, ROAD, or WATER.
+     */
+    public void setTerrain(int row, int terrain) {
+        rowTerrain[row] = terrain;
+    }
+
+    /**
+     * Sets whether the top row of the screen is the end zone at the top of the level.
+     *
+     * @param isEndZoneVisible True when the level has scrolled all the way to its top.
+     */
+    public void setEndZoneVisible(boolean isEndZoneVisible) {
+        this.isEndZoneVisible = isEndZoneVisible;
+    }
+
+    /**
+     * Copies the terrain of every row, so the copy can be drawn while the level keeps scrolling.
+     *
+     * @return A background with the current terrain that will not change.
+     */
+    @Override
+    public Background snapshot() {
+        return new MappedBackground(rowTerrain.clone(), isEndZoneVisible);
+    }
+
+    /**
+     * Draws every row based on its terrain, and the lilies when the end zone is on screen.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     */
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if(isEndZoneVisible) {
+            g.setColor(new Color(108, 186, 88));
+            for(Rectangle lily : lilies) {
+                g.fillArc(lily.position.x, lily.position.y, lily.width, lily.height, 180, 330);
+            }
+        }
+    }
+
+    /**
+     * Gets the lilies, which can only be reached once the end zone is on screen.
+     *
+     * @return The lilies of the end zone, or an empty list while it is off screen.
+     */
+    @Override
+    public List<Rectangle> getLilies() {
+        return isEndZoneVisible ? lilies : Collections.emptyList();
+    }
+}
@@ -0,0 +1,316 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * MappedLevel class:
+ * A binary level read through a memory-mapped FileChannel, for generated levels with millions
+ * of lanes. Nothing is read when the level is opened except the header, and regions of the file
+ * are only mapped the first time a lane inside them is needed. Lanes are stored sorted by row
+ * so the lanes near a row can be found with a binary search and copied into a small LaneTable.
+ *
+ * Format (big endian): the int MAGIC, the int VERSION, and the lane count as a long. Then every
+ * lane as LANE_INTS ints in the same order as LaneTable.addLane(), with the direction stored as
+ * 1 for left and 0 for right.
+ */
+public class MappedLevel implements AutoCloseable {
+    /**
+     * Identifies a binary level file ("FRLV").
+     */
+    public static final int MAGIC = 0x46524C56;
+    /**
+     * Version of the format written.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Number of ints stored for each lane.
+     */
+    private static final int LANE_INTS = 11;
+    /**
+     * Size in bytes of each lane.
+     */
+    private static final int LANE_BYTES = LANE_INTS * Integer.BYTES;
+    /**
+     * Size in bytes of the header before the first lane.
+     */
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+    /**
+     * Number of lanes in each separately mapped region of the file.
+     */
+    private static final int LANES_PER_REGION = 1 << 20;
+
+    /**
+     * Converts or generates binary levels.
+     * "convert input.level output.bin" compiles a text level into a binary level.
+     * "generate output.bin laneCount seed" writes a random level with the requested number of lanes.
+     *
+     * @param args The command and its arguments.
+     * @throws IOException If a level could not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length == 3 && args[0].equals("convert")) {
+            write(LaneTable.load(Paths.get(args[1])), Paths.get(args[2]));
+        } else if(args.length == 4 && args[0].equals("generate")) {
+            generate(Paths.get(args[1]), Long.parseLong(args[2]), Long.parseLong(args[3]));
+        } else {
+            System.err.println("Usage: MappedLevel convert <input.level> <output.bin>");
+            System.err.println("       MappedLevel generate <output.bin> <laneCount> <seed>");
+        }
+    }
+
+    /**
+     * The open level file.
+     */
+    private final FileChannel channel;
+    /**
+     * Number of lanes in the level.
+     */
+    private final long laneCount;
+    /**
+     * Regions of the file mapped so far, null until first used.
+     */
+    private final MappedByteBuffer[] regions;
+
+    /**
+     * Opens a binary level and reads its header.
+     *
+     * @param path The binary level file.
+     * @throws IOException If the file could not be opened or is not a binary level.
+     */
+    public MappedLevel(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+        header.flip();
+        if(header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+            channel.close();
+            throw new IOException("Not a binary level: " + path);
+        }
+        int version = header.getInt();
+        if(version != VERSION) {
+            channel.close();
+            throw new IOException("Unsupported binary level version " + version);
+        }
+        laneCount = header.getLong();
+        if(HEADER_BYTES + laneCount * LANE_BYTES > channel.size()) {
+            channel.close();
+            throw new IOException("Binary level is truncated: " + path);
+        }
+        regions = new MappedByteBuffer[(int)((laneCount + LANES_PER_REGION - 1) / LANES_PER_REGION)];
+    }
+
+    /**
+     * Gets the number of lanes in the level.
+     *
+     * @return Number of lanes.
+     */
+    public long getLaneCount() {
+        return laneCount;
+    }
+
+    /**
+     * Gets the row of a lane.
+     *
+     * @param lane Index of the lane.
+     * @return The row the lane travels along.
+     * @throws IOException If the region holding the lane could not be mapped.
+     */
+    public int getRow(long lane) throws IOException {
+        return region(lane).getInt(offsetInRegion(lane));
+    }
+
+    /**
+     * Finds the first lane with a row at or after the requested row.
+     *
+     * @param row The row to search for.
+     * @return Index of the first lane with a row at or after the row, or the lane count if there is none.
+     * @throws IOException If a region of the file could not be mapped.
+     */
+    public long findFirstLane(int row) throws IOException {
+        long low = 0, high = laneCount;
+        while(low < high) {
+            long middle = (low + high) >>> 1;
+            if(getRow(middle) < row) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copies a range of lanes into a new LaneTable.
+     *
+     * @param start First lane to copy.
+     * @param end The lane after the last lane to copy.
+     * @return A table holding just the requested lanes, in order.
+     * @throws IOException If a region of the file could not be mapped.
+     */
+    public LaneTable readLanes(long start, long end) throws IOException {
+        LaneTable table = new LaneTable((int)(end - start));
+        for(long lane = start; lane < end; lane++) {
+            ByteBuffer buffer = region(lane);
+            int offset = offsetInRegion(lane);
+            int[] values = new int[LANE_INTS];
+            for(int i = 0; i < LANE_INTS; i++) {
+                values[i] = buffer.getInt(offset + i * Integer.BYTES);
+            }
+            table.addLane(values[0], values[1], values[2] == 1, values[3], values[4], values[5],
+                    values[6], values[7], values[8], values[9], values[10]);
+        }
+        return table;
+    }
+
+    /**
+     * Closes the file. Mapped regions stay valid until they are garbage collected.
+     *
+     * @throws IOException If the file failed to close.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a level as a binary level, sorting the lanes by row.
+     *
+     * @param lanes The level to write.
+     * @param path Where to write the binary level.
+     * @throws IOException If the file could not be written.
+     */
+    public static void write(LaneTable lanes, Path path) throws IOException {
+        Integer[] order = new Integer[lanes.getLaneCount()];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(lanes::getRow));
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            writeHeader(out, order.length);
+            for(int lane : order) {
+                writeLane(out, lanes.getRow(lane), lanes.getType(lane), lanes.isMovingLeft(lane), lanes.getMoveDistance(lane),
+                        lanes.getMoveDelay(lane), lanes.getObjectCount(lane), lanes.getOffset(lane), lanes.getSpacing(lane), lanes.getMinWidth(lane),
+                        lanes.getMaxWidth(lane), lanes.getEntry(lane));
+            }
+        }
+    }
+
+    /**
+     * Writes a random level with one lane per row, starting at row 1 and going down the rows.
+     * Water lanes (logs and turtles) and road lanes (cars) alternate in blocks of five.
+     *
+     * @param path Where to write the binary level.
+     * @param laneCount Number of lanes to generate.
+     * @param seed The seed for the random lane properties.
+     * @throws IOException If the file could not be written.
+     */
+    public static void generate(Path path, long laneCount, long seed) throws IOException {
+        Random random = new Random(seed);
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            writeHeader(out, laneCount);
+            for(long lane = 0; lane < laneCount; lane++) {
+                boolean isRoad = (lane / 5) % 2 == 1;
+                boolean isMovingLeft = random.nextBoolean();
+                if(isRoad) {
+                    writeLane(out, (int)(lane + 1), LaneTable.CAR, isMovingLeft, 2 + random.nextInt(3),
+                            30 + random.nextInt(30), 2, random.nextInt(2), 5, 2, 3, 3);
+                } else {
+                    boolean isLog = random.nextBoolean();
+                    writeLane(out, (int)(lane + 1), isLog ? LaneTable.LOG : LaneTable.TURTLE, isMovingLeft,
+                            GamePanel.SEGMENT_HEIGHT, 800 + random.nextInt(600), 2, random.nextInt(2), 5,
+                            1, isLog ? 4 : 3, isLog ? 5 : 3);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the header.
+     *
+     * @param out Where to write the header.
+     * @param laneCount Number of lanes that will follow.
+     * @throws IOException If the header could not be written.
+     */
+    private static void writeHeader(DataOutputStream out, long laneCount) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(laneCount);
+    }
+
+    /**
+     * Writes a single lane with the same values as LaneTable.addLane().
+     *
+     * @param out Where to write the lane.
+     * @param row The row the lane travels along.
+     * @param type One of CAR, LOG, or TURTLE.
+     * @param isMovingLeft When true the objects move left, otherwise right.
+     * @param moveDistance Pixels moved each time the delay passes.
+     * @param moveDelay Time in ms between movements.
+     * @param objectCount Number of objects spawned in the lane.
+     * @param offset Segments behind the spawn point of the first object.
+     * @param spacing Segments between the spawn point of each object.
+     * @param minWidth Smallest width in segments.
+     * @param maxWidth Largest width in segments.
+     * @param entry Segments off the left edge that objects moving right re-enter at.
+     * @throws IOException If the lane could not be written.
+     */
+    private static void writeLane(DataOutputStream out, int row, int type, boolean isMovingLeft, int moveDistance,
+                                  int moveDelay, int objectCount, int offset, int spacing, int minWidth,
+                                  int maxWidth, int entry) throws IOException {
+        out.writeInt(row);
+        out.writeInt(type);
+        out.writeInt(isMovingLeft ? 1 : 0);
+        out.writeInt(moveDistance);
+        out.writeInt(moveDelay);
+        out.writeInt(objectCount);
+        out.writeInt(offset);
+        out.writeInt(spacing);
+        out.writeInt(minWidth);
+        out.writeInt(maxWidth);
+        out.writeInt(entry);
+    }
+
+    /**
+     * Gets the mapped region holding a lane, mapping it the first time it is used.
+     *
+     * @param lane Index of the lane.
+     * @return The mapped region.
+     * @throws IOException If the region could not be mapped.
+     */
+    private synchronized ByteBuffer region(long lane) throws IOException {
+        if(lane < 0 || lane >= laneCount) {
+            throw new IndexOutOfBoundsException("Lane " + lane + " of " + laneCount);
+        }
+        int regionIndex = (int)(lane / LANES_PER_REGION);
+        if(regions[regionIndex] == null) {
+            long firstLane = (long)regionIndex * LANES_PER_REGION;
+            long lanesInRegion = Math.min(LANES_PER_REGION, laneCount - firstLane);
+            regions[regionIndex] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + firstLane * LANE_BYTES, lanesInRegion * LANE_BYTES);
+        }
+        return regions[regionIndex];
+    }
+
+    /**
+     * Gets the byte offset of a lane within its region.
+     *
+     * @param lane Index of the lane.
+     * @return Offset in bytes from the start of the region.
+     */
+    private static int offsetInRegion(long lane) {
+        return (int)(lane % LANES_PER_REGION) * LANE_BYTES;
+    }
+}
@@ -0,0 +1,158 @@
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * MappedLevelCheck class:
+ * Climbs a frog through a MappedLevel many screens tall and checks the level scrolls with it.
+ * The level is written to a temporary binary level with a car lane on every row, each with
+ * stopped cars parked off the left edge so the frog can hop straight up. It checks that the
+ * level starts with its bottom lane above the spawn row, that every lane on screen is
+ * materialized on every tick and keeps the same objects for as long as it stays on screen,
+ * that no more lanes are materialized than fit on screen plus the radius, and that the frog
+ * reaches the lilies at the top of the level. Exits with 1 if any check fails.
+ */
+public class MappedLevelCheck {
+    /**
+     * Number of lanes in the level, one per row.
+     */
+    private static final int LANE_COUNT = 200;
+    /**
+     * Number of objects in each lane.
+     */
+    private static final int OBJECTS_PER_LANE = 2;
+    /**
+     * Rows above and below the screen that lanes are materialized for.
+     */
+    private static final int RADIUS = 1;
+    /**
+     * Ticks run after each hop.
+     */
+    private static final int TICKS_PER_HOP = 5;
+
+    /**
+     * Number of checks that failed.
+     */
+    private static int failures;
+
+    /**
+     * Runs every check and prints the result of each.
+     *
+     * @param args Not used.
+     * @throws IOException If the temporary level could not be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        LaneTable lanes = new LaneTable(LANE_COUNT);
+        for(int row = 1; row <= LANE_COUNT; row++) {
+            lanes.addLane(row, LaneTable.CAR, false, 0, 1000, OBJECTS_PER_LANE, 0, 3, 2, 3, 3);
+        }
+        Path path = Files.createTempFile("frogger-mapped", ".bin");
+        try {
+            MappedLevel.write(lanes, path);
+            try(MappedLevel level = new MappedLevel(path)) {
+                run(new World(1, level, RADIUS));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        System.out.println(failures == 0 ? "All checks passed" : failures + " checks failed");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Climbs the frog to the top of the level, checking the lanes on screen after every tick.
+     *
+     * @param world A world on the level written by main().
+     */
+    private static void run(World world) {
+        check("the bottom lane starts on the row above the spawn row",
+                world.getCameraRow() == LANE_COUNT + 1 - Player.SPAWN_ROW);
+        int maxObjects = (Player.SPAWN_ROW + 1 + 2 * RADIUS) * OBJECTS_PER_LANE;
+        boolean isEveryLaneOnScreen = true, isEveryLaneKept = true, isWindowBounded = true;
+        Map<Integer, List<MovingObject>> previousRows = getObjectsByLevelRow(world);
+        int hops = 0;
+        while(world.getPlayer().getScore() == 0 && world.getPlayer().getDeaths() == 0 && hops < 2 * LANE_COUNT) {
+            world.handleInput(KeyEvent.VK_UP, true);
+            world.handleInput(KeyEvent.VK_UP, false);
+            hops++;
+            for(int i = 0; i < TICKS_PER_HOP; i++) {
+                world.tick(GamePanel.TIME_INTERVAL);
+                Map<Integer, List<MovingObject>> rows = getObjectsByLevelRow(world);
+                for(int row = 0; row <= Player.SPAWN_ROW; row++) {
+                    int levelRow = row + world.getCameraRow();
+                    if(levelRow >= 1 && levelRow <= LANE_COUNT) {
+                        List<MovingObject> objects = rows.get(levelRow);
+                        List<MovingObject> previous = previousRows.get(levelRow);
+                        isEveryLaneOnScreen &= objects != null && objects.size() == OBJECTS_PER_LANE;
+                        isEveryLaneKept &= previous == null || isSameObjects(previous, objects);
+                    }
+                }
+                isWindowBounded &= world.getObjectList().size() <= maxObjects;
+                previousRows = rows;
+            }
+        }
+        check("the level scrolled all the way to its top", world.getCameraRow() == 0);
+        check("every lane on screen is materialized on every tick", isEveryLaneOnScreen);
+        check("a lane keeps its objects while it stays on screen", isEveryLaneKept);
+        check("no more lanes are materialized than the screen and radius", isWindowBounded);
+        check("the frog climbed the whole level and reached a lily",
+                world.getPlayer().getScore() == 100 && world.getPlayer().getDeaths() == 0 && hops == LANE_COUNT + 1);
+    }
+
+    /**
+     * Prints the result of a check and counts it if it failed.
+     *
+     * @param name What was checked.
+     * @param passed True if the check passed.
+     */
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+     * Groups the materialized objects by the row of the level they are on.
+     *
+     * @param world The world to look in.
+     * @return The objects on each row of the level, keyed by the row.
+     */
+    private static Map<Integer, List<MovingObject>> getObjectsByLevelRow(World world) {
+        Map<Integer, List<MovingObject>> rows = new HashMap<>();
+        for(MovingObject object : world.getObjectList()) {
+            int levelRow = Math.floorDiv(object.position.y, GamePanel.SEGMENT_HEIGHT) + world.getCameraRow();
+            rows.computeIfAbsent(levelRow, row -> new ArrayList<>()).add(object);
+        }
+        return rows;
+    }
+
+    /**
+     * Checks two lists hold the very same objects, not just equal ones.
+     *
+     * @param previous The objects on a row before a tick.
+     * @param objects The objects on the same row after it.
+     * @return True if both lists hold the same instances in the same order.
+     */
+    private static boolean isSameObjects(List<MovingObject> previous, List<MovingObject> objects) {
+        if(objects == null || previous.size() != objects.size()) {
+            return false;
+        }
+        for(int i = 0; i < previous.size(); i++) {
+            if(previous.get(i) != objects.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
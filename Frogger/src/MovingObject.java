@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.util.Random;
 
 /**
  * Frogger
@@ -6,8 +7,9 @@ import java.awt.*;
  *
  * MovingObject class:
  * Defines a generic moving object that can move left or right.
+ * The direction, speed, and widths come from the lane the object belongs to in a LaneTable.
  */
-public class MovingObject extends Rectangle {
+public class MovingObject extends Rectangle implements Cloneable {
     /**
      * Height of moving objects.
      */
@@ -22,9 +24,13 @@ public class MovingObject extends Rectangle {
      */
     private ActionTimer moveTimer;
     /**
-     * Distance to move each time the timer triggers.
+     * The level the object's lane is defined in.
      */
-    private int moveDistance;
+    protected LaneTable lanes;
+    /**
+     * Index of the lane in the LaneTable that the object belongs to.
+     */
+    protected int lane;
     /**
      * The colour to draw the object with.
      */
@@ -33,27 +39,37 @@ public class MovingObject extends Rectangle {
      * When true the object is ready to be reset because it has moved off screen.
      */
     private boolean isExpired;
+    /**
+     * True when reset() has been called since the start of the last update().
+     */
+    private boolean wasReset;
     /**
      * A safe object can be walked on in the water area and can be attached to by the player.
      */
     protected boolean isSafe;
+    /**
+     * Random source owned by this object so resets stay deterministic no matter which thread updates it.
+     */
+    protected Random random;
 
     /**
+     * @param lanes The level the object's lane is defined in.
+     * @param lane Index of the lane that defines the direction, speed, and widths.
      * @param position The position to place the object at.
      * @param width The width of the object.
      * @param drawColour The colour to draw the object with.
-     * @param isMovingLeft When true the object will always move left, otherwise right.
-     * @param moveDistance The distance to move during each movement in pixels.
-     * @param moveDelay The delay in movements in ms.
+     * @param random Random source used for any randomised properties when resetting.
      */
-    public MovingObject(Position position, int width, Color drawColour, boolean isMovingLeft, int moveDistance, int moveDelay) {
+    public MovingObject(LaneTable lanes, int lane, Position position, int width, Color drawColour, Random random) {
         super(position, width, OBJECT_HEIGHT);
-        this.moveDirection = isMovingLeft ? Position.LEFT : Position.RIGHT;
-        moveTimer = new ActionTimer(moveDelay);
-        this.moveDistance = moveDistance;
+        this.lanes = lanes;
+        this.lane = lane;
+        this.moveDirection = lanes.isMovingLeft(lane) ? Position.LEFT : Position.RIGHT;
+        moveTimer = new ActionTimer(lanes.getMoveDelay(lane));
         this.drawColour = drawColour;
         isExpired = false;
         isSafe = false;
+        this.random = random;
     }
 
     /**
@@ -63,12 +79,11 @@ public class MovingObject extends Rectangle {
      * @param deltaTime Time since last update.
      */
     public void update(int deltaTime) {
+        wasReset = false;
         moveTimer.update(deltaTime);
         if(moveTimer.isTriggered()) {
             moveTimer.reset();
-            Position translation = new Position(moveDirection);
-            translation.multiply(moveDistance);
-            position.add(translation);
+            position.x += moveDirection.x * lanes.getMoveDistance(lane);
 
             // Check if the object is ready to be reset from moving off screen
             if((moveDirection.equals(Position.LEFT) && position.x < -width)
@@ -78,6 +93,13 @@ public class MovingObject extends Rectangle {
         }
     }
 
+    /**
+     * Sets the movement timer to the lane's current delay, restarting it, after the lane has been retuned.
+     */
+    public void updateMoveDelay() {
+        moveTimer.setTimer(lanes.getMoveDelay(lane));
+    }
+
     /**
      * Draws a rectangle based on the defined properties of the object.
      *
@@ -93,6 +115,7 @@ public class MovingObject extends Rectangle {
      */
     public void reset() {
         isExpired = false;
+        wasReset = true;
     }
 
     /**
@@ -105,6 +128,50 @@ public class MovingObject extends Rectangle {
         return isExpired;
     }
 
+    /**
+     * Gets the X coordinate to place the object at when it is reset, just off screen on the side it moves in from.
+     *
+     * @return The X coordinate for a reset.
+     */
+    protected int getResetPositionX() {
+        return moveDirection.equals(Position.RIGHT) ? -(lanes.getEntry(lane) * GamePanel.SEGMENT_HEIGHT)
+                :(GamePanel.PANEL_WIDTH/GamePanel.SEGMENT_HEIGHT+1)*(GamePanel.SEGMENT_HEIGHT);
+    }
+
+    /**
+     * Copies the object with its own position, for drawing the object as it is now while the
+     * original keeps moving. The copy shares everything else, so it must never be updated.
+     *
+     * @return A copy of the object to draw.
+     */
+    public MovingObject copyForRendering() {
+        try {
+            MovingObject copy = (MovingObject) super.clone();
+            copy.position = new Position(position);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Gets the index of the lane the object belongs to.
+     *
+     * @return Index of the lane in the LaneTable.
+     */
+    public int getLane() {
+        return lane;
+    }
+
+    /**
+     * True when the object was reset after its most recent update.
+     *
+     * @return True if reset() was called since the start of the last update().
+     */
+    public boolean wasReset() {
+        return wasReset;
+    }
+
     /**
      * Allows the player to check if the object can be walked on to ride.
      *
@@ -0,0 +1,305 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * OccupancyGrid class:
+ * Encodes the board of a World as a grid of segment sized cells for bots and learning agents,
+ * one byte per cell in row order with row 0 at the top. Each cell holds what a frog would find
+ * there: GROUND, WATER, LILY, SAFE (a log or turtle), DEADLY (a car, or the end zone between the
+ * lilies), or FROG.
+ *
+ * The grid is kept up to date incrementally by update(), called after each tick. The cells each
+ * object covered when last seen are remembered, and since most objects only move every second or
+ * so, an object is only restamped when the cells it covers change. Counts of the safe, deadly,
+ * and frog coverage of every cell let a restamp set just the cells it touches. The whole grid is
+ * only rebuilt when the world's layout version changes, such as after a restart.
+ *
+ * getCells() gives a read-only view straight onto the grid, so callers read it without copying.
+ */
+public class OccupancyGrid {
+    /**
+     * Cell on grass or the road with nothing on it.
+     */
+    public static final byte GROUND = 0;
+    /**
+     * Cell of water with nothing on it.
+     */
+    public static final byte WATER = 1;
+    /**
+     * Cell of a lily a frog can score on.
+     */
+    public static final byte LILY = 2;
+    /**
+     * Cell covered by an object the frog can ride.
+     */
+    public static final byte SAFE = 3;
+    /**
+     * Cell covered by a car, or part of the end zone outside the lilies.
+     */
+    public static final byte DEADLY = 4;
+    /**
+     * Cell covered by a frog.
+     */
+    public static final byte FROG = 5;
+    /**
+     * Size in pixels of each square cell.
+     */
+    public static final int CELL_SIZE = GamePanel.SEGMENT_HEIGHT;
+    /**
+     * Number of columns of cells across the panel, including the partly visible last column.
+     */
+    public static final int COLUMNS = (GamePanel.PANEL_WIDTH + CELL_SIZE - 1) / CELL_SIZE;
+    /**
+     * Number of rows of cells, from the end zone down to the row frogs spawn on.
+     */
+    public static final int ROWS = Player.SPAWN_ROW + 1;
+    /**
+     * Most frogs that can be on the board at once, one on each lily and the current frog.
+     */
+    private static final int MAX_FROGS = 16;
+
+    /**
+     * The world the grid describes.
+     */
+    private final World world;
+    /**
+     * The value of every cell.
+     */
+    private final byte[] cells;
+    /**
+     * Read-only view of the cells given to callers.
+     */
+    private final ByteBuffer cellView;
+    /**
+     * What every cell holds with nothing on it.
+     */
+    private final byte[] terrain;
+    /**
+     * Number of safe objects, deadly objects, and frogs covering each cell.
+     */
+    private final byte[] safeCount, deadlyCount, frogCount;
+    /**
+     * The layout version of the world the objects were stamped from, or -1 before the first update.
+     */
+    private long layoutVersion;
+    /**
+     * The objects stamped into the grid, in the same order as the world's object list.
+     */
+    private MovingObject[] stampedObjects;
+    /**
+     * Row, first column, and last column of the cells each stamped object covers,
+     * with the last column before the first when the object is off the grid.
+     */
+    private int[] objectRow, objectFirstColumn, objectLastColumn;
+    /**
+     * X coordinate of each stamped object when last seen. Objects only move across their lane
+     * and are only resized when they reset off screen, so the cells are only rechecked when it changes.
+     */
+    private int[] objectX;
+    /**
+     * Whether each stamped object was stamped as safe, as turtles can change.
+     */
+    private boolean[] objectSafe;
+    /**
+     * Row, first column, and last column of the cells each stamped frog covers.
+     */
+    private final int[] frogRow, frogFirstColumn, frogLastColumn;
+    /**
+     * Number of frogs currently stamped.
+     */
+    private int stampedFrogCount;
+
+    /**
+     * Creates the grid for a world and fills it from the world's current state.
+     *
+     * @param world The world to describe.
+     */
+    public OccupancyGrid(World world) {
+        this.world = world;
+        int cellCount = COLUMNS * ROWS;
+        cells = new byte[cellCount];
+        cellView = ByteBuffer.wrap(cells).asReadOnlyBuffer();
+        terrain = new byte[cellCount];
+        safeCount = new byte[cellCount];
+        deadlyCount = new byte[cellCount];
+        frogCount = new byte[cellCount];
+        stampedObjects = new MovingObject[0];
+        objectRow = objectFirstColumn = objectLastColumn = objectX = new int[0];
+        objectSafe = new boolean[0];
+        frogRow = new int[MAX_FROGS];
+        frogFirstColumn = new int[MAX_FROGS];
+        frogLastColumn = new int[MAX_FROGS];
+        layoutVersion = -1;
+        update();
+    }
+
+    /**
+     * Brings the grid up to date with the world. Only objects whose cells changed since the last
+     * update are restamped, unless the layout has changed and the whole grid is rebuilt.
+     */
+    public void update() {
+        List<MovingObject> objects = world.getObjectList();
+        if(world.getLayoutVersion() != layoutVersion || objects.size() != stampedObjects.length) {
+            rebuild(objects);
+        } else {
+            for(int i = 0; i < stampedObjects.length; i++) {
+                MovingObject object = stampedObjects[i];
+                if(object.position.x == objectX[i] && object.isSafe() == objectSafe[i]) continue;
+                objectX[i] = object.position.x;
+                int row = getRow(object), first = getFirstColumn(object), last = getLastColumn(object);
+                boolean isSafe = object.isSafe();
+                if(row != objectRow[i] || first != objectFirstColumn[i] || last != objectLastColumn[i]
+                        || isSafe != objectSafe[i]) {
+                    stamp(objectSafe[i] ? safeCount : deadlyCount, objectRow[i], objectFirstColumn[i], objectLastColumn[i], -1);
+                    stamp(isSafe ? safeCount : deadlyCount, row, first, last, 1);
+                    objectRow[i] = row;
+                    objectFirstColumn[i] = first;
+                    objectLastColumn[i] = last;
+                    objectSafe[i] = isSafe;
+                }
+            }
+        }
+        updateFrogs();
+    }
+
+    /**
+     * Gets a read-only view of the cells, COLUMNS cells per row from the top row down. The view
+     * shares the grid, so it always shows the state as of the last update.
+     *
+     * @return A view of the cells. Use absolute gets, or duplicate() it to read relative to a position.
+     */
+    public ByteBuffer getCells() {
+        return cellView;
+    }
+
+    /**
+     * Gets the value of one cell.
+     *
+     * @param column Column of the cell from the left.
+     * @param row Row of the cell from the top.
+     * @return One of the cell values.
+     */
+    public byte getCell(int column, int row) {
+        return cells[row * COLUMNS + column];
+    }
+
+    /**
+     * Recalculates the terrain and every object from scratch.
+     *
+     * @param objects The world's current object list.
+     */
+    private void rebuild(List<MovingObject> objects) {
+        Background background = world.getBackground();
+        List<Rectangle> lilies = background.getLilies();
+        for(int row = 0; row < ROWS; row++) {
+            byte rowTerrain = background.isWater(row * CELL_SIZE) ? WATER : GROUND;
+            for(int column = 0; column < COLUMNS; column++) {
+                terrain[row * COLUMNS + column] = (row == 0 && !lilies.isEmpty()) ? DEADLY : rowTerrain;
+            }
+        }
+        for(int i = 0; i < lilies.size(); i++) {
+            Rectangle lily = lilies.get(i);
+            for(int column = getFirstColumn(lily); column <= getLastColumn(lily); column++) {
+                terrain[getRow(lily) * COLUMNS + column] = LILY;
+            }
+        }
+        Arrays.fill(safeCount, (byte)0);
+        Arrays.fill(deadlyCount, (byte)0);
+        Arrays.fill(frogCount, (byte)0);
+        System.arraycopy(terrain, 0, cells, 0, cells.length);
+        stampedFrogCount = 0;
+
+        int count = objects.size();
+        if(stampedObjects.length != count) {
+            objectRow = new int[count];
+            objectFirstColumn = new int[count];
+            objectLastColumn = new int[count];
+            objectX = new int[count];
+            objectSafe = new boolean[count];
+        }
+        stampedObjects = objects.toArray(new MovingObject[count]);
+        for(int i = 0; i < count; i++) {
+            MovingObject object = stampedObjects[i];
+            objectRow[i] = getRow(object);
+            objectFirstColumn[i] = getFirstColumn(object);
+            objectLastColumn[i] = getLastColumn(object);
+            objectX[i] = object.position.x;
+            objectSafe[i] = object.isSafe();
+            stamp(objectSafe[i] ? safeCount : deadlyCount, objectRow[i], objectFirstColumn[i], objectLastColumn[i], 1);
+        }
+        layoutVersion = world.getLayoutVersion();
+    }
+
+    /**
+     * Restamps every frog. There are only ever a few, and the current frog may move every tick.
+     */
+    private void updateFrogs() {
+        for(int i = 0; i < stampedFrogCount; i++) {
+            stamp(frogCount, frogRow[i], frogFirstColumn[i], frogLastColumn[i], -1);
+        }
+        List<Frog> frogs = world.getPlayer().getFrogs();
+        stampedFrogCount = Math.min(frogs.size(), MAX_FROGS);
+        for(int i = 0; i < stampedFrogCount; i++) {
+            Frog frog = frogs.get(i);
+            frogRow[i] = getRow(frog);
+            frogFirstColumn[i] = getFirstColumn(frog);
+            frogLastColumn[i] = getLastColumn(frog);
+            stamp(frogCount, frogRow[i], frogFirstColumn[i], frogLastColumn[i], 1);
+        }
+    }
+
+    /**
+     * Adds to the count of a range of cells in a row and recalculates their values.
+     *
+     * @param counts The counts to change.
+     * @param row Row of the cells, which may be off the grid.
+     * @param firstColumn First column of the range.
+     * @param lastColumn Last column of the range, before the first when the range is empty.
+     * @param change Amount to add to each count.
+     */
+    private void stamp(byte[] counts, int row, int firstColumn, int lastColumn, int change) {
+        if(row < 0 || row >= ROWS) return;
+        for(int column = firstColumn; column <= lastColumn; column++) {
+            int cell = row * COLUMNS + column;
+            counts[cell] += change;
+            cells[cell] = frogCount[cell] > 0 ? FROG
+                    : deadlyCount[cell] > 0 ? DEADLY
+                    : safeCount[cell] > 0 ? SAFE
+                    : terrain[cell];
+        }
+    }
+
+    /**
+     * Gets the row of cells containing the vertical centre of a rectangle.
+     *
+     * @param rectangle The rectangle to find.
+     * @return The row, which may be off the grid.
+     */
+    private static int getRow(Rectangle rectangle) {
+        return Math.floorDiv(rectangle.position.y + rectangle.height / 2, CELL_SIZE);
+    }
+
+    /**
+     * Gets the first column of cells a rectangle covers, clamped to the grid.
+     *
+     * @param rectangle The rectangle to find.
+     * @return The first column.
+     */
+    private static int getFirstColumn(Rectangle rectangle) {
+        return Math.max(0, Math.floorDiv(rectangle.position.x, CELL_SIZE));
+    }
+
+    /**
+     * Gets the last column of cells a rectangle covers, clamped to the grid.
+     *
+     * @param rectangle The rectangle to find.
+     * @return The last column, which is before the first column when the rectangle is off the grid.
+     */
+    private static int getLastColumn(Rectangle rectangle) {
+        return Math.min(COLUMNS - 1, Math.floorDiv(rectangle.position.x + rectangle.width - 1, CELL_SIZE));
+    }
+}
@@ -3,6 +3,7 @@ import org.w3c.dom.css.Rect;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -14,14 +15,34 @@ import java.util.List;
  */
 public class Player {
     /**
-     * Status of the keys for left/right/up to determine if movement should happen during updates.
+     * The row new frogs are spawned on.
      */
-    private boolean keyLeftIsPressed, keyRightIsPressed, keyUpIsPressed;
-
+    public static final int SPAWN_ROW = 12;
+    /**
+     * The x coordinate new frogs are spawned at.
+     */
+    public static final int SPAWN_X = (GamePanel.PANEL_WIDTH/GamePanel.SEGMENT_HEIGHT /2)*GamePanel.SEGMENT_HEIGHT;
     /**
      * The magnitude of movement translation for left/right movement.
      */
-    private final int moveRate = 5;
+    public static final int MOVE_RATE = 5;
+    /**
+     * Percent of overlap with a safe object needed to attach to it when hopping, and to stay attached.
+     */
+    public static final double ATTACH_PERCENT = 15;
+    /**
+     * Percent of overlap with an object needed to collide with it.
+     */
+    public static final double COLLISION_PERCENT = 3;
+    /**
+     * Percent of overlap with a lily needed to land on it.
+     */
+    public static final double LILY_PERCENT = 40;
+
+    /**
+     * Status of the keys for left/right/up to determine if movement should happen during updates.
+     */
+    private boolean keyLeftIsPressed, keyRightIsPressed, keyUpIsPressed;
 
     /**
      * Remaining lives that the player has.
@@ -49,12 +70,9 @@ public class Player {
     private Position objectPosition;
     /**
      * All frogs that the player controls. Including the current frog and any that have already been used for score.
+     * Each spawn costs a life and reset() clears the list, so it never holds more frogs than the starting lives.
      */
     private List<Frog> frogs;
-    /**
-     * Frogs shown in the bottom right to represent the lives.
-     */
-    private List<Frog> livesVisual;
     /**
      * When true the player has run out of lives and has no current frog they are moving.
      */
@@ -63,6 +81,18 @@ public class Player {
      * The current score of the player awarded for making frogs reach the lilies.
      */
     private int score;
+    /**
+     * Notified about attaches, deaths, and scores. May be null.
+     */
+    private GameEventListener eventListener;
+    /**
+     * Draws the lives and score in the score zone.
+     */
+    private Hud hud;
+    /**
+     * Number of frogs that have died since the last reset.
+     */
+    private int deaths;
 
     /**
      * Sets up the player ready with all their lives and a frog ready to move.
@@ -74,7 +104,8 @@ public class Player {
         this.background = background;
         this.movingObjects = movingObjects;
         frogs = new ArrayList<>();
-        livesVisual = new ArrayList<>();
+        hud = new Hud(background.getScoreZone());
+        objectPosition = new Position(0, 0);
         reset();
     }
 
@@ -87,15 +118,7 @@ public class Player {
         attachedObject = null;
         lives = 4;
         score = 0;
-        livesVisual.clear();
-        Position startLivesPosition = new Position(background.getScoreZone().position);
-        livesVisual.add(new Frog(new Position(startLivesPosition), GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT));
-        startLivesPosition.x += GamePanel.SEGMENT_HEIGHT;
-        livesVisual.add(new Frog(new Position(startLivesPosition), GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT));
-        startLivesPosition.x += GamePanel.SEGMENT_HEIGHT;
-        livesVisual.add(new Frog(new Position(startLivesPosition), GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT));
-        startLivesPosition.x += GamePanel.SEGMENT_HEIGHT;
-        livesVisual.add(new Frog(new Position(startLivesPosition), GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT));
+        deaths = 0;
         spawnFrog();
         gameEnded = false;
     }
@@ -114,29 +137,33 @@ public class Player {
             return;
         }
 
+        MovingObject previousAttachedObject = attachedObject;
         if(keyUpIsPressed) {
             keyUpIsPressed = false;
             currentFrog.position.y -= GamePanel.SEGMENT_HEIGHT;
-            attachedObject = findCollidedMovingObject(15);
+            attachedObject = findCollidedObject(ATTACH_PERCENT);
             // Only attach to an object if it is safe.
             if(attachedObject != null && !attachedObject.isSafe()) attachedObject = null;
         }
         if(keyLeftIsPressed) {
-            moveWithinBounds(new Position(-moveRate,0), GamePanel.PANEL_WIDTH-currentFrog.width, GamePanel.PANEL_HEIGHT);
+            moveWithinBounds(-MOVE_RATE, 0, GamePanel.PANEL_WIDTH-currentFrog.width, GamePanel.PANEL_HEIGHT);
         }
         if(keyRightIsPressed) {
-            moveWithinBounds(new Position(moveRate,0), GamePanel.PANEL_WIDTH-currentFrog.width, GamePanel.PANEL_HEIGHT);
+            moveWithinBounds(MOVE_RATE, 0, GamePanel.PANEL_WIDTH-currentFrog.width, GamePanel.PANEL_HEIGHT);
         }
         if(attachedObject != null) {
             // Check if the frog has moved along to another safe object or off the current safe object
-            MovingObject checkedAttachedObject = findCollidedMovingObject(15);
+            MovingObject checkedAttachedObject = findCollidedObject(ATTACH_PERCENT);
             if(checkedAttachedObject != attachedObject) {
                 attachedObject = checkedAttachedObject;
             }
             if(attachedObject != null) {
-                objectPosition = new Position(attachedObject.position);
+                objectPosition.setPosition(attachedObject.position.x, attachedObject.position.y);
             }
         }
+        if(attachedObject != previousAttachedObject && eventListener != null) {
+            eventListener.onFrogAttached(attachedObject == null ? -1 : movingObjects.indexOf(attachedObject));
+        }
     }
 
     /**
@@ -148,15 +175,14 @@ public class Player {
 
         // Move object to keep it in the same relative position on the attached object.
         if(attachedObject != null) {
-            Position offset = new Position(attachedObject.position);
-            offset.subtract(objectPosition);
-            moveWithinBounds(offset, GamePanel.PANEL_WIDTH-currentFrog.width, GamePanel.PANEL_HEIGHT);
+            moveWithinBounds(attachedObject.position.x - objectPosition.x, attachedObject.position.y - objectPosition.y,
+                    GamePanel.PANEL_WIDTH-currentFrog.width, GamePanel.PANEL_HEIGHT);
         }
 
         // Test for the frog being somewhere they should be removed from (hit a car, in water, or at the end)
         boolean spawnAnotherFrog = false;
-        MovingObject collidedObj = findCollidedMovingObject(3);
-        Rectangle collidedLily = getCollidedLily(40);
+        MovingObject collidedObj = findCollidedObject(COLLISION_PERCENT);
+        Rectangle collidedLily = findCollidedLily(currentFrog, background.getLilies(), LILY_PERCENT);
         if((collidedObj != null && !collidedObj.isSafe())
         || (collidedObj == null && isFrogInWaterArea())
         || (currentFrog.position.y == 0)) {
@@ -164,8 +190,33 @@ public class Player {
             if(collidedLily == null || isCollidingWithAnotherFrog()) {
                 // Frog died... oops
                 frogs.remove(frogs.size() - 1);
+                deaths++;
+                boolean isDeathRecorded = FlightEvents.isFrogDeathEnabled();
+                if(eventListener != null || isDeathRecorded) {
+                    GameEventListener.DeathCause cause = getDeathCause(collidedObj, collidedLily);
+                    if(eventListener != null) {
+                        eventListener.onFrogDeath(cause);
+                    }
+                    if(isDeathRecorded) {
+                        FlightEvents.FrogDeath deathEvent = new FlightEvents.FrogDeath();
+                        deathEvent.cause = cause.name();
+                        deathEvent.x = currentFrog.position.x;
+                        deathEvent.row = currentFrog.position.y / GamePanel.SEGMENT_HEIGHT;
+                        deathEvent.score = score;
+                        deathEvent.commit();
+                    }
+                }
             } else {
                 score += 100;
+                if(eventListener != null) {
+                    eventListener.onFrogScored(score);
+                }
+                if(FlightEvents.isFrogScoredEnabled()) {
+                    FlightEvents.FrogScored scoredEvent = new FlightEvents.FrogScored();
+                    scoredEvent.x = currentFrog.position.x;
+                    scoredEvent.score = score;
+                    scoredEvent.commit();
+                }
             }
             currentFrog = null;
         }
@@ -194,14 +245,13 @@ public class Player {
     }
 
     /**
-     * Draws all the frogs, all the lives, and the score.
+     * Draws all the frogs, and the cached layer with all the lives and the score.
      *
      * @param g Reference to the graphics object for rendering.
      */
     public void paint(Graphics g) {
         frogs.forEach(f -> f.paint(g));
-        livesVisual.forEach(f -> f.paint(g));
-        drawScore(g);
+        hud.paint(g, score, lives);
     }
 
     /**
@@ -214,13 +264,77 @@ public class Player {
     }
 
     /**
-     * Moves based on the translationVector, but clamps the movement within the bounds of the play space.
+     * Sets the listener to notify about attaches, deaths, and scores.
+     *
+     * @param eventListener The listener to notify, or null for none.
+     */
+    public void setEventListener(GameEventListener eventListener) {
+        this.eventListener = eventListener;
+    }
+
+    /**
+     * Gets the current score.
+     *
+     * @return The score awarded for making frogs reach the lilies.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Adds to the score for progress other than reaching a lily, such as rows gained in endless mode.
+     *
+     * @param amount Amount to add to the score.
+     */
+    public void addScore(int amount) {
+        score += amount;
+    }
+
+    /**
+     * Gets the lives that have not been used yet.
      *
-     * @param translationVector Added to position to calculate the new position.
+     * @return Remaining lives that the player has.
      */
-    private void moveWithinBounds(Position translationVector, int maxX, int maxY) {
-        int newX = currentFrog.position.x+translationVector.x;
-        int newY = currentFrog.position.y+translationVector.y;
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Gets every frog that is drawn, including the current frog and the frogs that have scored.
+     *
+     * @return A read only view of the frogs.
+     */
+    public List<Frog> getFrogs() {
+        return Collections.unmodifiableList(frogs);
+    }
+
+    /**
+     * Gets the number of frogs that have died.
+     *
+     * @return Number of frogs that have died since the last reset.
+     */
+    public int getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * Gets the frog that is currently being controlled.
+     *
+     * @return The current frog, or null if there is none.
+     */
+    public Frog getCurrentFrog() {
+        return currentFrog;
+    }
+
+    /**
+     * Moves by the translation, but clamps the movement within the bounds of the play space.
+     *
+     * @param translationX Added to the x position to calculate the new position.
+     * @param translationY Added to the y position to calculate the new position.
+     */
+    private void moveWithinBounds(int translationX, int translationY, int maxX, int maxY) {
+        int newX = currentFrog.position.x+translationX;
+        int newY = currentFrog.position.y+translationY;
         if(newX < 0) newX = 0;
         else if(newX > maxX) newX = maxX;
         if(newY < 0) newY = 0;
@@ -229,17 +343,21 @@ public class Player {
     }
 
     /**
+     * Finds the first object a frog overlaps by at least the minimum percent. Shared with the
+     * ReachabilitySolver so it follows exactly the same collision rules.
      *
-     *
+     * @param frog The frog, or any rectangle in its place.
+     * @param movingObjects The objects to test in order.
      * @param minimumPercent Percent from 0 to 100.
      * @return Null or the object that is intersected with covering a minimumPercent of coverage.
      */
-    private MovingObject findCollidedMovingObject(double minimumPercent) {
-        if(currentFrog == null) return null;
+    static MovingObject findCollidedMovingObject(Rectangle frog, List<MovingObject> movingObjects, double minimumPercent) {
+        if(frog == null) return null;
 
-        for(MovingObject movingObject : movingObjects) {
-            if(currentFrog.isIntersecting(movingObject)) {
-                if(currentFrog.getOverlapPercent(movingObject) >= minimumPercent) {
+        for(int i = 0; i < movingObjects.size(); i++) {
+            MovingObject movingObject = movingObjects.get(i);
+            if(frog.isIntersecting(movingObject)) {
+                if(frog.getOverlapPercent(movingObject) >= minimumPercent) {
                     return movingObject;
                 }
             }
@@ -247,37 +365,77 @@ public class Player {
         return null;
     }
 
+    /**
+     * Finds the first object the current frog overlaps by at least the minimum percent,
+     * recording the query as a flight event when enabled.
+     *
+     * @param minimumPercent Percent from 0 to 100.
+     * @return Null or the object that is intersected with covering a minimumPercent of coverage.
+     */
+    private MovingObject findCollidedObject(double minimumPercent) {
+        if(!FlightEvents.isCollisionQueryEnabled()) {
+            return findCollidedMovingObject(currentFrog, movingObjects, minimumPercent);
+        }
+        FlightEvents.CollisionQuery queryEvent = new FlightEvents.CollisionQuery();
+        queryEvent.begin();
+        MovingObject collidedObj = findCollidedMovingObject(currentFrog, movingObjects, minimumPercent);
+        queryEvent.minimumPercent = minimumPercent;
+        queryEvent.hit = collidedObj != null;
+        queryEvent.objectsScanned = collidedObj != null ? movingObjects.indexOf(collidedObj) + 1 : movingObjects.size();
+        queryEvent.commit();
+        return collidedObj;
+    }
+
     /**
      * Spawns a frog by subtracting a life and adding the new frog in the spawn position.
      */
     private void spawnFrog() {
         lives--;
-        livesVisual.remove(livesVisual.size()-1);
-        Frog newFrog = new Frog(new Position((GamePanel.PANEL_WIDTH/GamePanel.SEGMENT_HEIGHT /2)*GamePanel.SEGMENT_HEIGHT, 12*GamePanel.SEGMENT_HEIGHT),
+        Frog newFrog = new Frog(new Position(SPAWN_X, SPAWN_ROW*GamePanel.SEGMENT_HEIGHT),
                 GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT);
         frogs.add(newFrog);
         currentFrog = newFrog;
     }
 
+    /**
+     * Works out why the current frog died using the same checks as postUpdate().
+     *
+     * @param collidedObj The object the frog collided with, or null.
+     * @param collidedLily The lily the frog collided with, or null.
+     * @return The cause of death.
+     */
+    private GameEventListener.DeathCause getDeathCause(MovingObject collidedObj, Rectangle collidedLily) {
+        if(collidedObj != null && !collidedObj.isSafe()) {
+            return GameEventListener.DeathCause.CAR;
+        } else if(collidedObj == null && isFrogInWaterArea()) {
+            return GameEventListener.DeathCause.WATER;
+        } else if(collidedLily == null) {
+            return GameEventListener.DeathCause.MISSED_LILY;
+        }
+        return GameEventListener.DeathCause.OCCUPIED_LILY;
+    }
+
     /**
      * Checks if the frog's y position is inside the water area.
      *
      * @return True if the frog is in the water area.
      */
     private boolean isFrogInWaterArea() {
-        return (currentFrog.position.y >= background.getWaterZone().position.y &&
-                currentFrog.position.y <= background.getWaterZone().position.y+background.getWaterZone().height-5);
+        return background.isWater(currentFrog.position.y);
     }
 
     /**
      * Checks if there is a lily collided with that meets the minimum percent of coverage.
      *
+     * @param frog The frog, or any rectangle in its place.
+     * @param lilies The lilies to test in order.
      * @param minimumCollision Percent from 0 to 100.
      * @return Null or a lily matching the requirements.
      */
-    private Rectangle getCollidedLily(double minimumCollision) {
-        for(Rectangle lily : background.getLilies()) {
-            if(lily.getOverlapPercent(currentFrog) >= minimumCollision) {
+    static Rectangle findCollidedLily(Rectangle frog, List<Rectangle> lilies, double minimumCollision) {
+        for(int i = 0; i < lilies.size(); i++) {
+            Rectangle lily = lilies.get(i);
+            if(lily.getOverlapPercent(frog) >= minimumCollision) {
                 return lily;
             }
         }
@@ -297,17 +455,4 @@ public class Player {
         }
         return false;
     }
-
-    /**
-     * Draws the score in the bottom left corner.
-     *
-     * @param g Reference to the Graphics object for rendering.
-     */
-    private void drawScore(Graphics g) {
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 20));
-        String scoreStr = score + " :Score";
-        int strWidth = g.getFontMetrics().stringWidth(scoreStr);
-        g.drawString(scoreStr, GamePanel.PANEL_WIDTH-strWidth-15, background.getScoreZone().position.y+30);
-    }
 }
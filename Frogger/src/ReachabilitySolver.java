@@ -0,0 +1,529 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * ReachabilitySolver class:
+ * Answers whether a frog can cross a level to a lily and how soon, as a check on generated levels
+ * and as an oracle for evaluating bots. The moving objects of a World do not depend on the frog, so
+ * their schedule is simulated once from the seed up to a horizon. A crossing is then searched for
+ * over the time-expanded graph of (row, x, tick) states, where every x pixel of a row is a bit in
+ * a frontier bitset. Frogs riding an object are kept in a separate frontier from frogs standing
+ * still, since only a riding frog is carried along.
+ *
+ * Each tick the frontier takes every move a player could make that tick (stay, up, left, or right)
+ * using the same rules as Player.update() and postUpdate(): hopping onto a safe object attaches to
+ * it, an attached frog stays attached while it covers ATTACH_PERCENT of an object and is carried by
+ * it, and a frog colliding with a car or in the water without an object dies. The collision tests
+ * themselves are Player's. Standing moves are whole bitset shifts and only the few riding frogs are
+ * moved bit by bit. The rules each row applies are only recalculated on ticks where one of the
+ * row's objects changed, which is around once a second, and otherwise shared with the tick before.
+ *
+ * Every lily counts as free, as on a new level, and a frog makes at most one move per tick.
+ */
+public class ReachabilitySolver {
+    /**
+     * Number of rows from the end zone to the spawn row.
+     */
+    private static final int ROWS = Player.SPAWN_ROW + 1;
+    /**
+     * Largest x coordinate of a frog.
+     */
+    private static final int MAX_X = GamePanel.PANEL_WIDTH - GamePanel.SEGMENT_HEIGHT;
+    /**
+     * Number of longs in each row's bitset of x coordinates.
+     */
+    private static final int WORDS = (MAX_X + 1 + 63) / 64;
+
+    /**
+     * Number of ticks of the object schedule simulated.
+     */
+    private final int horizonTicks;
+    /**
+     * The rules of each row when the objects are in their positions at the start of each tick,
+     * from tick 0 to the horizon.
+     */
+    private final RowRules[][] rules;
+    /**
+     * The x coordinate of each object of each row at the start of each tick, shared between ticks
+     * where the row did not change.
+     */
+    private final int[][][] objectX;
+    /**
+     * Reused frontiers of standing and riding frogs for the current and next tick, WORDS longs per row.
+     */
+    private long[] standing, riding, nextStanding, nextRiding;
+
+    /**
+     * Simulates the objects of a level from a seed up to a horizon.
+     *
+     * @param seed The seed of the World to solve.
+     * @param lanes The level of the World to solve.
+     * @param horizonTicks Number of ticks to simulate, the latest tick any crossing can finish on.
+     */
+    public ReachabilitySolver(long seed, LaneTable lanes, int horizonTicks) {
+        this.horizonTicks = horizonTicks;
+        rules = new RowRules[horizonTicks + 1][ROWS];
+        objectX = new int[horizonTicks + 1][ROWS][];
+        standing = new long[ROWS * WORDS];
+        riding = new long[ROWS * WORDS];
+        nextStanding = new long[ROWS * WORDS];
+        nextRiding = new long[ROWS * WORDS];
+
+        World world = new World(seed, lanes);
+        Background background = world.getBackground();
+        List<List<MovingObject>> rowObjects = new ArrayList<>();
+        for(int row = 0; row < ROWS; row++) {
+            rowObjects.add(new ArrayList<>());
+        }
+        for(MovingObject object : world.getObjectList()) {
+            int row = (object.position.y + object.height / 2) / GamePanel.SEGMENT_HEIGHT;
+            if(row >= 0 && row < ROWS) {
+                rowObjects.get(row).add(object);
+            }
+        }
+        int[][] widths = new int[ROWS][];
+        boolean[][] safety = new boolean[ROWS][];
+        for(int tick = 0; tick <= horizonTicks; tick++) {
+            for(int row = 0; row < ROWS; row++) {
+                List<MovingObject> objects = rowObjects.get(row);
+                int[] xs = new int[objects.size()], ws = new int[objects.size()];
+                boolean[] safe = new boolean[objects.size()];
+                for(int i = 0; i < xs.length; i++) {
+                    xs[i] = objects.get(i).position.x;
+                    ws[i] = objects.get(i).width;
+                    safe[i] = objects.get(i).isSafe();
+                }
+                boolean isSameShape = tick > 0 && Arrays.equals(ws, widths[row]) && Arrays.equals(safe, safety[row]);
+                int shift = isSameShape ? findCommonShift(objectX[tick - 1][row], xs) : Integer.MIN_VALUE;
+                if(shift == 0) {
+                    objectX[tick][row] = objectX[tick - 1][row];
+                    rules[tick][row] = rules[tick - 1][row];
+                } else {
+                    objectX[tick][row] = xs;
+                    widths[row] = ws;
+                    safety[row] = safe;
+                    // The end zone's lilies do not move with the objects, so its rules are never shifted.
+                    boolean canShift = shift != Integer.MIN_VALUE && row > 0;
+                    rules[tick][row] = new RowRules(row, objects, background,
+                            canShift ? rules[tick - 1][row] : null, canShift ? shift : 0);
+                }
+            }
+            world.tick(GamePanel.TIME_INTERVAL);
+        }
+    }
+
+    /**
+     * Finds the distance every object of a row moved by, if they all moved the same distance.
+     *
+     * @param before The x coordinate of each object before.
+     * @param after The x coordinate of each object after.
+     * @return The distance every object moved, or Integer.MIN_VALUE if they moved different distances.
+     */
+    private static int findCommonShift(int[] before, int[] after) {
+        if(after.length == 0) return 0;
+        int shift = after[0] - before[0];
+        for(int i = 1; i < after.length; i++) {
+            if(after[i] - before[i] != shift) return Integer.MIN_VALUE;
+        }
+        return shift;
+    }
+
+    /**
+     * Gets the number of ticks of the object schedule simulated.
+     *
+     * @return The latest tick any crossing can finish on.
+     */
+    public int getHorizonTicks() {
+        return horizonTicks;
+    }
+
+    /**
+     * Finds the fastest crossing for a frog spawned at the start of a tick.
+     *
+     * @param startTick The tick the frog can first move on, from 0 up to the horizon.
+     * @return Number of ticks from the start tick until the frog lands on a lily,
+     *         or -1 if no crossing finishes by the horizon.
+     */
+    public int findCrossingTicks(int startTick) {
+        return search(startTick, horizonTicks, null);
+    }
+
+    /**
+     * Finds the fastest crossing for a frog spawned at the start of a tick, giving up after a limit.
+     *
+     * @param startTick The tick the frog can first move on, from 0 up to the horizon.
+     * @param maxTicks Most ticks the crossing can take.
+     * @return Number of ticks from the start tick until the frog lands on a lily,
+     *         or -1 if no crossing finishes within the limit or by the horizon.
+     */
+    public int findCrossingTicks(int startTick, int maxTicks) {
+        return search(startTick, (int)Math.min(horizonTicks, (long)startTick + maxTicks), null);
+    }
+
+    /**
+     * Finds the moves of the fastest crossing for a frog spawned at the start of a tick.
+     *
+     * @param startTick The tick the frog can first move on, from 0 up to the horizon.
+     * @return The move for each tick of the crossing as one of the FroggerEnv actions NOOP, UP,
+     *         LEFT, or RIGHT, or null if no crossing finishes by the horizon.
+     */
+    public int[] findCrossing(int startTick) {
+        long[][] history = new long[horizonTicks - startTick + 1][];
+        int ticks = search(startTick, horizonTicks, history);
+        if(ticks < 0) return null;
+
+        // Walk back from a lily, finding a state on the tick before that a move leads from.
+        int[] moves = new int[ticks];
+        int[] state = null;
+        long[] last = history[ticks];
+        for(int x = 0; x <= MAX_X && state == null; x++) {
+            if(isSet(last, 0, 0, x) || isSet(last, ROWS * WORDS, 0, x)) {
+                state = new int[] { 0, x, isSet(last, ROWS * WORDS, 0, x) ? 1 : 0 };
+            }
+        }
+        for(int step = ticks - 1; step >= 0; step--) {
+            state = findPredecessor(startTick + step, history[step], state, moves, step);
+        }
+        return moves;
+    }
+
+    /**
+     * Finds a state in a frontier that one of the moves takes to a state on the next tick.
+     *
+     * @param tick The tick the move is made on.
+     * @param frontier The standing then riding frontiers at the start of the tick.
+     * @param target The row, x, and riding flag (1 or 0) of the state after the tick.
+     * @param moves Where to record the move.
+     * @param step Index in moves to record the move at.
+     * @return The row, x, and riding flag of the state the move was made from.
+     */
+    private int[] findPredecessor(int tick, long[] frontier, int[] target, int[] moves, int step) {
+        for(int isRiding = 0; isRiding <= 1; isRiding++) {
+            for(int row = 0; row < ROWS; row++) {
+                for(int x = 0; x <= MAX_X; x++) {
+                    if(!isSet(frontier, isRiding * ROWS * WORDS, row, x)) continue;
+                    for(int move = FroggerEnv.NOOP; move < FroggerEnv.ACTION_COUNT; move++) {
+                        if(Arrays.equals(successor(tick, row, x, isRiding == 1, move), target)) {
+                            moves[step] = move;
+                            return new int[] { row, x, isRiding };
+                        }
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No move leads to the state on tick " + (tick + 1));
+    }
+
+    /**
+     * Works out where a single move takes a single frog, following the same rules as the frontiers.
+     *
+     * @param tick The tick the move is made on.
+     * @param row The row of the frog.
+     * @param x The x coordinate of the frog.
+     * @param isRiding True if the frog is attached to an object.
+     * @param move One of the FroggerEnv actions.
+     * @return The row, x, and riding flag after the tick, or null if the frog dies.
+     */
+    private int[] successor(int tick, int row, int x, boolean isRiding, int move) {
+        boolean isAttached = isRiding;
+        if(move == FroggerEnv.UP) {
+            if(row == 0) return null;
+            row--;
+            isAttached = rules[tick][row].isSet(rules[tick][row].attachesSafe, x);
+        } else if(move == FroggerEnv.LEFT) {
+            x = Math.max(0, x - Player.MOVE_RATE);
+        } else if(move == FroggerEnv.RIGHT) {
+            x = Math.min(MAX_X, x + Player.MOVE_RATE);
+        }
+        int object = isAttached ? rules[tick][row].attachedObject[x] : -1;
+        if(object >= 0) {
+            x = Math.max(0, Math.min(MAX_X, x + objectX[tick + 1][row][object] - objectX[tick][row][object]));
+        }
+        RowRules after = rules[tick + 1][row];
+        return after.isSet(after.survives, x) ? new int[] { row, x, object >= 0 ? 1 : 0 } : null;
+    }
+
+    /**
+     * Runs the search, optionally keeping the frontiers of every tick.
+     *
+     * @param startTick The tick the frog can first move on.
+     * @param endTick The last tick a crossing can finish on.
+     * @param history Where to keep the standing then riding frontiers at the start of each tick
+     *                from the start tick on, or null to not keep them.
+     * @return Number of ticks until the frog lands on a lily, or -1 if it cannot by the end tick.
+     */
+    private int search(int startTick, int endTick, long[][] history) {
+        Arrays.fill(standing, 0);
+        Arrays.fill(riding, 0);
+        set(standing, Player.SPAWN_ROW, Player.SPAWN_X);
+        for(int tick = startTick; tick < endTick; tick++) {
+            if(history != null) {
+                history[tick - startTick] = copyFrontiers();
+            }
+            Arrays.fill(nextStanding, 0);
+            Arrays.fill(nextRiding, 0);
+            boolean anyAlive = false;
+            for(int row = 0; row < ROWS; row++) {
+                anyAlive |= advanceRow(tick, row);
+            }
+            for(int row = 0; row < ROWS; row++) {
+                RowRules after = rules[tick + 1][row];
+                int base = row * WORDS;
+                for(int w = 0; w < WORDS; w++) {
+                    nextStanding[base + w] &= after.survives[w];
+                    nextRiding[base + w] &= after.survives[w];
+                }
+            }
+            long[] swap = standing;
+            standing = nextStanding;
+            nextStanding = swap;
+            swap = riding;
+            riding = nextRiding;
+            nextRiding = swap;
+            for(int w = 0; w < WORDS; w++) {
+                if((standing[w] | riding[w]) != 0) {
+                    if(history != null) {
+                        history[tick + 1 - startTick] = copyFrontiers();
+                    }
+                    return tick + 1 - startTick;
+                }
+            }
+            if(!anyAlive) return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the current frontiers.
+     *
+     * @return The standing frontier followed by the riding frontier.
+     */
+    private long[] copyFrontiers() {
+        long[] copy = Arrays.copyOf(standing, 2 * ROWS * WORDS);
+        System.arraycopy(riding, 0, copy, ROWS * WORDS, ROWS * WORDS);
+        return copy;
+    }
+
+    /**
+     * Moves every frog on a row by each move that can be made during a tick, adding the results
+     * to the next frontiers before the deaths at the end of the tick are removed.
+     *
+     * @param tick The tick being run.
+     * @param row The row the frogs start the tick on.
+     * @return True if there were any frogs on the row.
+     */
+    private boolean advanceRow(int tick, int row) {
+        int base = row * WORDS;
+        boolean anyStanding = false, anyRiding = false;
+        for(int w = 0; w < WORDS; w++) {
+            anyStanding |= standing[base + w] != 0;
+            anyRiding |= riding[base + w] != 0;
+        }
+        if(!anyStanding && !anyRiding) return false;
+
+        if(anyStanding) {
+            // Standing frogs that stay, or move left or right, are not carried so stay standing.
+            for(int w = 0; w < WORDS; w++) {
+                nextStanding[base + w] |= standing[base + w];
+            }
+            shiftInto(standing, base, nextStanding, base, -Player.MOVE_RATE);
+            shiftInto(standing, base, nextStanding, base, Player.MOVE_RATE);
+        }
+        if(anyRiding) {
+            // Riding frogs recheck what they are attached to after moving, then are carried by it.
+            RowRules current = rules[tick][row];
+            for(int w = 0; w < WORDS; w++) {
+                long bits = riding[base + w];
+                while(bits != 0) {
+                    int x = w * 64 + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    ride(tick, row, current, x);
+                    ride(tick, row, current, Math.max(0, x - Player.MOVE_RATE));
+                    ride(tick, row, current, Math.min(MAX_X, x + Player.MOVE_RATE));
+                }
+            }
+        }
+        if(row > 0) {
+            // Any frog hopping up only attaches if it lands on a safe object.
+            RowRules above = rules[tick][row - 1];
+            int aboveBase = (row - 1) * WORDS;
+            for(int w = 0; w < WORDS; w++) {
+                long hopping = standing[base + w] | riding[base + w];
+                nextStanding[aboveBase + w] |= hopping & ~above.attachesSafe[w];
+                long attaching = hopping & above.attachesSafe[w];
+                while(attaching != 0) {
+                    int x = w * 64 + Long.numberOfTrailingZeros(attaching);
+                    attaching &= attaching - 1;
+                    ride(tick, row - 1, above, x);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carries an attached frog at an x coordinate with the object it covers, or leaves it standing
+     * if it no longer covers one.
+     *
+     * @param tick The tick being run.
+     * @param row The row of the frog.
+     * @param rowRules The rules of the row at the start of the tick.
+     * @param x The x coordinate of the frog after its own move.
+     */
+    private void ride(int tick, int row, RowRules rowRules, int x) {
+        int object = rowRules.attachedObject[x];
+        if(object < 0) {
+            set(nextStanding, row, x);
+        } else {
+            int carriedX = x + objectX[tick + 1][row][object] - objectX[tick][row][object];
+            set(nextRiding, row, Math.max(0, Math.min(MAX_X, carriedX)));
+        }
+    }
+
+    /**
+     * Sets the bit of an x coordinate on a row.
+     *
+     * @param frontier The frontier to set the bit in.
+     * @param row The row.
+     * @param x The x coordinate.
+     */
+    private static void set(long[] frontier, int row, int x) {
+        frontier[row * WORDS + (x >> 6)] |= 1L << (x & 63);
+    }
+
+    /**
+     * Checks the bit of an x coordinate on a row.
+     *
+     * @param frontiers The frontiers to check.
+     * @param offset Index of the frontier in the array.
+     * @param row The row.
+     * @param x The x coordinate.
+     * @return True if the bit is set.
+     */
+    private static boolean isSet(long[] frontiers, int offset, int row, int x) {
+        return (frontiers[offset + row * WORDS + (x >> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    /**
+     * Ors a row of bits shifted by a number of x coordinates into another row, clamping any bits
+     * shifted past either end to the end, as moveWithinBounds() does.
+     *
+     * @param from The frontier to read.
+     * @param fromBase Index of the row's first word in the frontier to read.
+     * @param to The frontier to or into.
+     * @param toBase Index of the row's first word in the frontier to or into.
+     * @param shift Number of x coordinates to shift by, positive to the right. Less than 64.
+     */
+    private static void shiftInto(long[] from, int fromBase, long[] to, int toBase, int shift) {
+        if(shift < 0) {
+            int s = -shift;
+            for(int w = 0; w < WORDS; w++) {
+                long higher = w + 1 < WORDS ? from[fromBase + w + 1] : 0;
+                to[toBase + w] |= (from[fromBase + w] >>> s) | (higher << (64 - s));
+            }
+            if((from[fromBase] & ((1L << s) - 1)) != 0) {
+                to[toBase] |= 1;
+            }
+        } else {
+            for(int w = WORDS - 1; w >= 0; w--) {
+                long lower = w > 0 ? from[fromBase + w - 1] : 0;
+                to[toBase + w] |= (from[fromBase + w] << shift) | (lower >>> (64 - shift));
+            }
+            // Clear anything shifted past the last x coordinate and clamp it to the last one instead.
+            int lastWord = MAX_X >> 6, lastBit = MAX_X & 63;
+            long beyond = lastBit == 63 ? 0 : -1L << (lastBit + 1);
+            boolean clamped = (to[toBase + lastWord] & beyond) != 0;
+            for(int x = MAX_X - shift + 1; x <= MAX_X && !clamped; x++) {
+                clamped = (from[fromBase + (x >> 6)] & (1L << (x & 63))) != 0;
+            }
+            to[toBase + lastWord] &= ~beyond;
+            if(clamped) {
+                to[toBase + lastWord] |= 1L << lastBit;
+            }
+        }
+    }
+
+    /**
+     * What happens to a frog at each x coordinate of a row while its objects are in one position.
+     */
+    private static class RowRules {
+        /**
+         * Index in the row's objects of the object a frog at each x would be attached to, or -1 for none.
+         */
+        private final byte[] attachedObject;
+        /**
+         * Bits of the x coordinates where a frog hopping onto the row attaches to a safe object.
+         */
+        private final long[] attachesSafe;
+        /**
+         * Bits of the x coordinates where a frog survives the end of a tick, which on the end zone
+         * are those landing on a lily.
+         */
+        private final long[] survives;
+
+        /**
+         * Checks the bit of an x coordinate in one of the rule's bitsets.
+         *
+         * @param bits One of the bitsets.
+         * @param x The x coordinate.
+         * @return True if the bit is set.
+         */
+        private boolean isSet(long[] bits, int x) {
+            return (bits[x >> 6] & (1L << (x & 63))) != 0;
+        }
+
+        /**
+         * Works out the rules for every x coordinate of a row using Player's collision tests.
+         * When every object of the row has only moved by the same amount since the previous rules,
+         * a frog at x now meets the objects just as a frog at x - shift did, so those rules are
+         * shifted and only the x coordinates with nothing to shift from are tested.
+         *
+         * @param row The row.
+         * @param objects The objects on the row in their current positions.
+         * @param background The background of the level.
+         * @param previous The rules before every object moved by the shift, or null to test every x.
+         * @param shift Distance every object moved since the previous rules.
+         */
+        private RowRules(int row, List<MovingObject> objects, Background background, RowRules previous, int shift) {
+            attachedObject = new byte[MAX_X + 1];
+            attachesSafe = new long[WORDS];
+            survives = new long[WORDS];
+            int y = row * GamePanel.SEGMENT_HEIGHT;
+            Frog frog = new Frog(new Position(0, y), GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT);
+            boolean isWater = background.isWater(y);
+            for(int x = 0; x <= MAX_X; x++) {
+                int from = x - shift;
+                if(previous != null && from >= 0 && from <= MAX_X) {
+                    attachedObject[x] = previous.attachedObject[from];
+                    if(previous.isSet(previous.attachesSafe, from)) {
+                        attachesSafe[x >> 6] |= 1L << (x & 63);
+                    }
+                    if(previous.isSet(previous.survives, from)) {
+                        survives[x >> 6] |= 1L << (x & 63);
+                    }
+                    continue;
+                }
+                frog.position.x = x;
+                MovingObject attached = Player.findCollidedMovingObject(frog, objects, Player.ATTACH_PERCENT);
+                attachedObject[x] = (byte)(attached == null ? -1 : objects.indexOf(attached));
+                if(attached != null && attached.isSafe()) {
+                    attachesSafe[x >> 6] |= 1L << (x & 63);
+                }
+                boolean isAlive;
+                if(row == 0) {
+                    isAlive = Player.findCollidedLily(frog, background.getLilies(), Player.LILY_PERCENT) != null;
+                } else {
+                    MovingObject collided = Player.findCollidedMovingObject(frog, objects, Player.COLLISION_PERCENT);
+                    isAlive = collided == null ? !isWater : collided.isSafe();
+                }
+                if(isAlive) {
+                    survives[x >> 6] |= 1L << (x & 63);
+                }
+            }
+        }
+    }
+}
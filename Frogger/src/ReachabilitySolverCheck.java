@@ -0,0 +1,89 @@
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * ReachabilitySolverCheck class:
+ * Checks the crossings found by the ReachabilitySolver can really be played. For several seeds
+ * and spawn ticks of the default level, a FroggerEnv waits until the spawn tick and then plays the
+ * moves from findCrossing() one tick per step. The frog must never die, and must score on exactly
+ * the last move, which is the tick findCrossingTicks() gives. Exits with 1 if any crossing fails.
+ */
+public class ReachabilitySolverCheck {
+    /**
+     * Number of seeds checked, starting from 1.
+     */
+    private static final int SEED_COUNT = 5;
+    /**
+     * Spawn ticks checked for each seed.
+     */
+    private static final int[] START_TICKS = { 0, 1, 7, 50, 123, 250, 333, 500, 611, 750, 899, 1000 };
+    /**
+     * Number of ticks of the object schedule the solver simulates.
+     */
+    private static final int HORIZON_TICKS = 3000;
+
+    /**
+     * Number of crossings that could not be played as found.
+     */
+    private static int failures;
+
+    /**
+     * Solves and plays every seed and spawn tick and prints the result of each.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        int checked = 0;
+        for(long seed = 1; seed <= SEED_COUNT; seed++) {
+            ReachabilitySolver solver = new ReachabilitySolver(seed, LaneTable.getDefault(), HORIZON_TICKS);
+            for(int startTick : START_TICKS) {
+                check(seed, startTick, solver);
+                checked++;
+            }
+        }
+        System.out.println((checked - failures) + " of " + checked + " crossings played as found");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the crossing found for one spawn tick and prints it if it fails.
+     *
+     * @param seed The seed the solver was created with.
+     * @param startTick The tick the frog first moves on.
+     * @param solver The solver for the seed on the default level.
+     */
+    private static void check(long seed, int startTick, ReachabilitySolver solver) {
+        int ticks = solver.findCrossingTicks(startTick);
+        int[] moves = solver.findCrossing(startTick);
+        String failure = null;
+        if(moves == null || moves.length != ticks) {
+            failure = "found " + (moves == null ? "no" : moves.length) + " moves for a crossing of " + ticks + " ticks";
+        } else {
+            FroggerEnv env = new FroggerEnv(LaneTable.getDefault(), 1, 0, FroggerEnv.DEFAULT_DEATH_PENALTY);
+            float[] observation = new float[FroggerEnv.OBSERVATION_SIZE];
+            env.reset(seed, observation, 0);
+            for(int tick = 0; tick < startTick; tick++) {
+                env.step(FroggerEnv.NOOP, observation, 0);
+            }
+            Player player = env.getWorld().getPlayer();
+            int scoredStep = -1;
+            for(int step = 0; step < moves.length && player.getDeaths() == 0 && scoredStep < 0; step++) {
+                env.step(moves[step], observation, 0);
+                if(player.getScore() > 0) {
+                    scoredStep = step;
+                }
+            }
+            if(player.getDeaths() > 0) {
+                failure = "the frog died";
+            } else if(scoredStep != ticks - 1) {
+                failure = "scored on tick " + (scoredStep + 1) + " instead of " + ticks;
+            }
+        }
+        if(failure != null) {
+            System.out.println("FAIL seed " + seed + " start tick " + startTick + ": " + failure);
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * RenderBenchmark class:
+ * Measures what each part of rendering costs by painting it over and over into an offscreen
+ * image: the background, a frog, a turtle group of each width, a car and a truck, a log, and the
+ * full GamePanel paint at several entity counts. Each case is warmed up, then timed over several
+ * rounds and the fastest round's time per paint is reported, since pauses from other work on the
+ * machine and GC only ever make a round slower.
+ *
+ * The results can be saved as a baseline file and later runs compared against it, reporting any
+ * case more than REGRESSION_TOLERANCE slower. Timings only compare on the same machine, so the
+ * baseline is kept with the machine rather than in the source tree.
+ */
+public class RenderBenchmark {
+    /**
+     * Ratio of a case's time to its baseline above which it is reported as a regression.
+     */
+    public static final double REGRESSION_TOLERANCE = 1.25;
+    /**
+     * Time in ms each case is painted for before it is measured.
+     */
+    private static final int WARM_UP_TIME = 500;
+    /**
+     * Time in ms each measured round paints a case for.
+     */
+    private static final int ROUND_TIME = 200;
+    /**
+     * Number of rounds measured for each case.
+     */
+    private static final int ROUNDS = 7;
+    /**
+     * Number of paints between each check of the clock.
+     */
+    private static final int BATCH_SIZE = 64;
+    /**
+     * Multiples of each lane's object count used for the full panel paint cases.
+     */
+    private static final int[] PANEL_OBJECT_SCALES = { 1, 4, 16 };
+
+    /**
+     * Runs every case and prints its time per paint. "--update path" writes the times as the
+     * baseline to the path, and "path" compares against the baseline at the path, exiting with 1
+     * if any case regressed.
+     *
+     * @param args Nothing, a baseline file to compare with, or --update followed by where to write the baseline.
+     * @throws IOException If the baseline could not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        boolean isUpdate = args.length == 2 && args[0].equals("--update");
+        Map<String, Double> baseline = !isUpdate && args.length == 1 ? readBaseline(Paths.get(args[0])) : null;
+
+        BufferedImage image = new BufferedImage(GamePanel.PANEL_WIDTH, GamePanel.PANEL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Map<String, Double> results = new LinkedHashMap<>();
+        int regressions = 0;
+        for(Map.Entry<String, Consumer<Graphics>> benchmark : createBenchmarks().entrySet()) {
+            double nanos = measure(image, benchmark.getValue());
+            results.put(benchmark.getKey(), nanos);
+            String line = String.format(Locale.ROOT, "%-16s %12.1f ns", benchmark.getKey(), nanos);
+            Double expected = baseline == null ? null : baseline.get(benchmark.getKey());
+            if(expected != null) {
+                double ratio = nanos / expected;
+                line += String.format(Locale.ROOT, "  baseline %12.1f ns  %5.2fx", expected, ratio);
+                if(ratio > REGRESSION_TOLERANCE) {
+                    line += "  REGRESSION";
+                    regressions++;
+                }
+            }
+            System.out.println(line);
+        }
+
+        if(isUpdate) {
+            List<String> lines = new ArrayList<>();
+            results.forEach((name, nanos) -> lines.add(name + " " + String.format(Locale.ROOT, "%.1f", nanos)));
+            Files.write(Paths.get(args[1]), lines, StandardCharsets.US_ASCII);
+            System.out.println("Wrote " + lines.size() + " baseline times to " + args[1]);
+        } else if(baseline != null) {
+            System.out.println(regressions + " of " + results.size() + " cases regressed by more than "
+                    + Math.round((REGRESSION_TOLERANCE - 1) * 100) + "%");
+            if(regressions > 0) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Creates every case, each painting one thing into the graphics it is given.
+     *
+     * @return The paint of each case keyed by its name, in the order they are run.
+     */
+    private static Map<String, Consumer<Graphics>> createBenchmarks() {
+        LaneTable lanes = new LaneTable(3);
+        int carLane = lanes.addLane(7, LaneTable.CAR, false, 3, 40, 1, 0, 5, 2, 3, 3);
+        int logLane = lanes.addLane(1, LaneTable.LOG, false, GamePanel.SEGMENT_HEIGHT, 1200, 1, 0, 5, 1, 4, 5);
+        int turtleLane = lanes.addLane(2, LaneTable.TURTLE, true, GamePanel.SEGMENT_HEIGHT, 1000, 1, 0, 5, 1, 4, 3);
+        Random random = new Random(0);
+        int x = 3 * GamePanel.SEGMENT_HEIGHT;
+
+        Map<String, Consumer<Graphics>> benchmarks = new LinkedHashMap<>();
+        Background background = new Background();
+        benchmarks.put("background", background::paint);
+        Frog frog = new Frog(new Position(Player.SPAWN_X, Player.SPAWN_ROW * GamePanel.SEGMENT_HEIGHT),
+                GamePanel.SEGMENT_HEIGHT, GamePanel.SEGMENT_HEIGHT);
+        benchmarks.put("frog", frog::paint);
+        for(int unitWidth = 1; unitWidth <= lanes.getMaxWidth(turtleLane); unitWidth++) {
+            Turtle turtle = new Turtle(lanes, turtleLane, x + unitWidth * GamePanel.SEGMENT_HEIGHT, unitWidth, random);
+            benchmarks.put("turtle-" + unitWidth, turtle::paint);
+        }
+        Car car = new Car(lanes, carLane, x, 2, random);
+        benchmarks.put("car", car::paint);
+        Car truck = new Car(lanes, carLane, x, 3, random);
+        benchmarks.put("truck", truck::paint);
+        Log log = new Log(lanes, logLane, x + 3 * GamePanel.SEGMENT_HEIGHT, 3, random);
+        benchmarks.put("log", log::paint);
+
+        for(int scale : PANEL_OBJECT_SCALES) {
+            World world = new World(0, createScaledLanes(scale));
+            String name = "panel-" + world.getObjectList().size() + "-objects";
+            // Paused straight away so the simulation thread leaves the first snapshot in place.
+            GamePanel panel = new GamePanel(world);
+            panel.setWindowActive(false);
+            benchmarks.put(name, panel::paint);
+        }
+        return benchmarks;
+    }
+
+    /**
+     * Creates a copy of the default level with more objects in every lane, spaced closer together.
+     *
+     * @param scale Multiple of each lane's object count.
+     * @return The scaled level.
+     */
+    private static LaneTable createScaledLanes(int scale) {
+        LaneTable defaultLanes = LaneTable.getDefault();
+        LaneTable lanes = new LaneTable(defaultLanes.getLaneCount());
+        for(int lane = 0; lane < defaultLanes.getLaneCount(); lane++) {
+            lanes.addLane(defaultLanes.getRow(lane), defaultLanes.getType(lane), defaultLanes.isMovingLeft(lane),
+                    defaultLanes.getMoveDistance(lane), defaultLanes.getMoveDelay(lane),
+                    defaultLanes.getObjectCount(lane) * scale, defaultLanes.getOffset(lane),
+                    Math.max(1, defaultLanes.getSpacing(lane) / scale), defaultLanes.getMinWidth(lane),
+                    defaultLanes.getMaxWidth(lane), defaultLanes.getEntry(lane));
+        }
+        return lanes;
+    }
+
+    /**
+     * Warms up a case and then finds its time per paint in the fastest of the rounds.
+     *
+     * @param image The image to paint into.
+     * @param paint The case to measure.
+     * @return Time of one paint in ns.
+     */
+    private static double measure(BufferedImage image, Consumer<Graphics> paint) {
+        Graphics2D g = image.createGraphics();
+        runFor(g, paint, WARM_UP_TIME);
+        double fastest = Double.MAX_VALUE;
+        for(int i = 0; i < ROUNDS; i++) {
+            fastest = Math.min(fastest, runFor(g, paint, ROUND_TIME));
+        }
+        g.dispose();
+        return fastest;
+    }
+
+    /**
+     * Paints a case repeatedly for a length of time, checking the clock every batch of paints.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     * @param paint The case to paint.
+     * @param time Time in ms to paint for.
+     * @return Mean time of one paint in ns.
+     */
+    private static double runFor(Graphics2D g, Consumer<Graphics> paint, int time) {
+        long start = System.nanoTime();
+        long end = start + time * 1_000_000L;
+        long paints = 0;
+        long now;
+        do {
+            for(int i = 0; i < BATCH_SIZE; i++) {
+                paint.accept(g);
+            }
+            paints += BATCH_SIZE;
+            now = System.nanoTime();
+        } while(now < end);
+        return (double)(now - start) / paints;
+    }
+
+    /**
+     * Reads a baseline written with --update.
+     *
+     * @param path The baseline file.
+     * @return The time of each case in ns keyed by its name.
+     * @throws IOException If the file could not be read.
+     */
+    private static Map<String, Double> readBaseline(Path path) throws IOException {
+        Map<String, Double> baseline = new LinkedHashMap<>();
+        for(String line : Files.readAllLines(path, StandardCharsets.US_ASCII)) {
+            int split = line.lastIndexOf(' ');
+            if(split > 0) {
+                baseline.put(line.substring(0, split), Double.parseDouble(line.substring(split + 1)));
+            }
+        }
+        return baseline;
+    }
+}
@@ -0,0 +1,328 @@
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * RenderHashCheck class:
+ * Guards rendering changes such as sprite or layer caching against visual regressions. A set of
+ * seeded scenarios is stepped headlessly with scripted input, selected ticks are drawn offscreen
+ * through the same paint methods as the GamePanel, and the pixels of each frame are hashed. The
+ * hashes are compared against the golden values in render-hashes.golden, with the scenarios run in
+ * parallel. Font rendering differs between platforms, so the golden values are only valid for the
+ * environment they were made in and are regenerated with --update after an intended change.
+ *
+ * Crowded scenarios with at least BandRenderer.PARALLEL_OBJECT_THRESHOLD objects are also drawn
+ * through a BandRenderer on a pool of several workers, at 1x and at HiDPI scales, and each frame
+ * must match the same snapshot drawn directly pixel for pixel. These need no golden values.
+ */
+public class RenderHashCheck {
+    /**
+     * Resource holding the golden hashes, one "scenario tick hash" per line.
+     */
+    private static final String GOLDEN_RESOURCE = "/render-hashes.golden";
+    /**
+     * Every scenario checked.
+     */
+    private static final List<Scenario> SCENARIOS = Arrays.asList(
+            new Scenario("idle", World::new, 0, 0, 1, 50, 500),
+            new Scenario("walker", World::new, 20, 0, 100, 400, 1000, 3000),
+            new Scenario("restarts", World::new, 5, 0, 250, 1500, 6000),
+            new Scenario("endless", seed -> new World(seed, new LaneRing()), 15, 0, 200, 800, 2000)
+    );
+    /**
+     * Scenarios with enough objects to be drawn in bands, each compared with direct drawing.
+     */
+    private static final List<Scenario> BAND_SCENARIOS = Arrays.asList(
+            new Scenario("crowded", seed -> new World(seed, createCrowdedLanes()), 0, 3, 1, 300, 1200),
+            new Scenario("crowded-walker", seed -> new World(seed, createCrowdedLanes()), 20, 4, 100, 400, 1000, 3000)
+    );
+    /**
+     * Scales of the Graphics the band scenarios are drawn at, as on screens of different densities.
+     */
+    private static final double[] BAND_SCALES = { 1, 1.5, 2 };
+    /**
+     * Number of worker threads the band scenarios are drawn with.
+     */
+    private static final int BAND_WORKERS = 4;
+    /**
+     * Multiple of each default lane's object count in the crowded level.
+     */
+    private static final int CROWDED_SCALE = 16;
+
+    /**
+     * Checks every scenario against the golden hashes and exits with 1 if any differ.
+     * With "--update path" the golden hashes are instead written to the path.
+     *
+     * @param args Nothing to check, or --update followed by where to write the golden hashes.
+     * @throws IOException If the golden hashes could not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> hashes = new LinkedHashMap<>();
+        SCENARIOS.parallelStream().map(Scenario::run).collect(Collectors.toList()).forEach(hashes::putAll);
+
+        if(args.length == 2 && args[0].equals("--update")) {
+            List<String> lines = new ArrayList<>();
+            hashes.forEach((frame, hash) -> lines.add(frame + " " + hash));
+            Files.write(Paths.get(args[1]), lines, StandardCharsets.US_ASCII);
+            System.out.println("Wrote " + lines.size() + " hashes to " + args[1]);
+            return;
+        }
+
+        Map<String, String> golden = readGolden();
+        int mismatches = 0;
+        for(Map.Entry<String, String> frame : hashes.entrySet()) {
+            String expected = golden.get(frame.getKey());
+            if(!frame.getValue().equals(expected)) {
+                System.out.println("MISMATCH " + frame.getKey() + " expected " + expected + " got " + frame.getValue());
+                mismatches++;
+            }
+        }
+        System.out.println((hashes.size() - mismatches) + " of " + hashes.size() + " frames match");
+
+        ForkJoinPool pool = new ForkJoinPool(BAND_WORKERS);
+        List<String> bandFrames = new ArrayList<>();
+        int bandMismatches = 0;
+        for(Scenario scenario : BAND_SCENARIOS) {
+            for(Map.Entry<String, Boolean> frame : scenario.compareBands(pool).entrySet()) {
+                bandFrames.add(frame.getKey());
+                if(!frame.getValue()) {
+                    System.out.println("MISMATCH " + frame.getKey() + " differs from direct drawing");
+                    bandMismatches++;
+                }
+            }
+        }
+        pool.shutdown();
+        System.out.println((bandFrames.size() - bandMismatches) + " of " + bandFrames.size()
+                + " band frames match direct drawing");
+        mismatches += bandMismatches;
+        if(mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a copy of the default level with many more objects in every lane, so every frame
+     * is drawn in bands.
+     *
+     * @return The crowded level.
+     */
+    private static LaneTable createCrowdedLanes() {
+        LaneTable defaultLanes = LaneTable.getDefault();
+        LaneTable lanes = new LaneTable(defaultLanes.getLaneCount());
+        for(int lane = 0; lane < defaultLanes.getLaneCount(); lane++) {
+            lanes.addLane(defaultLanes.getRow(lane), defaultLanes.getType(lane), defaultLanes.isMovingLeft(lane),
+                    defaultLanes.getMoveDistance(lane), defaultLanes.getMoveDelay(lane),
+                    defaultLanes.getObjectCount(lane) * CROWDED_SCALE, defaultLanes.getOffset(lane), 1,
+                    defaultLanes.getMinWidth(lane), defaultLanes.getMaxWidth(lane), defaultLanes.getEntry(lane));
+        }
+        return lanes;
+    }
+
+    /**
+     * Reads the golden hashes from the resource.
+     *
+     * @return The hash of each frame keyed by "scenario tick".
+     * @throws IOException If the resource is missing or could not be read.
+     */
+    private static Map<String, String> readGolden() throws IOException {
+        InputStream in = RenderHashCheck.class.getResourceAsStream(GOLDEN_RESOURCE);
+        if(in == null) {
+            throw new IOException("Missing resource " + GOLDEN_RESOURCE);
+        }
+        Map<String, String> golden = new LinkedHashMap<>();
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                int split = line.lastIndexOf(' ');
+                if(split > 0) {
+                    golden.put(line.substring(0, split), line.substring(split + 1));
+                }
+            }
+        }
+        return golden;
+    }
+
+    /**
+     * A seeded world played by a scripted player, with the ticks to hash.
+     */
+    private static class Scenario {
+        /**
+         * Keys the scripted player chooses between.
+         */
+        private static final int[] KEYS = { KeyEvent.VK_UP, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT };
+
+        /**
+         * Name written with each of the scenario's hashes.
+         */
+        private final String name;
+        /**
+         * Creates the world from the seed.
+         */
+        private final LongFunction<World> worldFactory;
+        /**
+         * The scripted player presses a key on average once every this many ticks, or never when 0.
+         */
+        private final int inputInterval;
+        /**
+         * Seed for the world and the scripted player.
+         */
+        private final long seed;
+        /**
+         * Ticks to hash, in ascending order.
+         */
+        private final int[] ticks;
+
+        /**
+         * Defines a scenario.
+         *
+         * @param name Name written with each of the scenario's hashes.
+         * @param worldFactory Creates the world from the seed.
+         * @param inputInterval Average ticks between key presses, or 0 for no input.
+         * @param seed Seed for the world and the scripted player.
+         * @param ticks Ticks to hash, in ascending order.
+         */
+        private Scenario(String name, LongFunction<World> worldFactory, int inputInterval, long seed, int... ticks) {
+            this.name = name;
+            this.worldFactory = worldFactory;
+            this.inputInterval = inputInterval;
+            this.seed = seed;
+            this.ticks = ticks;
+        }
+
+        /**
+         * Plays the scenario and hashes the selected ticks.
+         *
+         * @return The hash of each selected tick keyed by "name tick", in tick order.
+         */
+        private Map<String, String> run() {
+            BufferedImage image = new BufferedImage(GamePanel.PANEL_WIDTH, GamePanel.PANEL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Map<String, String> hashes = new LinkedHashMap<>();
+            play((world, tick) -> {
+                Graphics2D g = image.createGraphics();
+                GamePanel.paintWorld(world, g);
+                g.dispose();
+                hashes.put(name + " " + tick, hash(image));
+            });
+            return hashes;
+        }
+
+        /**
+         * Plays the scenario and draws a snapshot of each selected tick at every scale in
+         * BAND_SCALES, both directly and through a BandRenderer, comparing the pixels.
+         *
+         * @param pool The pool the BandRenderer draws on.
+         * @return Whether each frame matched, keyed by "name tick @scale", in tick order. A frame
+         *         with too few objects to be drawn in bands never matches.
+         */
+        private Map<String, Boolean> compareBands(ForkJoinPool pool) {
+            Map<String, Boolean> matches = new LinkedHashMap<>();
+            play((world, tick) -> {
+                BandRenderer bandRenderer = new BandRenderer(world.getBackground(), pool);
+                RenderSnapshot snapshot = new RenderSnapshot(world);
+                for(double scale : BAND_SCALES) {
+                    int width = (int)Math.ceil(GamePanel.PANEL_WIDTH * scale);
+                    int height = (int)Math.ceil(GamePanel.PANEL_HEIGHT * scale);
+                    BufferedImage direct = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                    BufferedImage bands = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                    Graphics2D g = direct.createGraphics();
+                    g.scale(scale, scale);
+                    snapshot.paint(g, new Hud(world.getBackground().getScoreZone()));
+                    g.dispose();
+                    g = bands.createGraphics();
+                    g.scale(scale, scale);
+                    bandRenderer.paint(g, snapshot, new Hud(world.getBackground().getScoreZone()));
+                    g.dispose();
+                    matches.put(name + " " + tick + " @" + scale,
+                            snapshot.getObjectCount() >= BandRenderer.PARALLEL_OBJECT_THRESHOLD
+                                    && Arrays.equals(getPixels(direct), getPixels(bands)));
+                }
+            });
+            return matches;
+        }
+
+        /**
+         * Plays the scenario, holding a random key until the next is chosen and restarting
+         * a while after the game ends, and hands over the world at each selected tick.
+         *
+         * @param frame Called with the world and tick at each selected tick.
+         */
+        private void play(BiConsumer<World, Integer> frame) {
+            World world = worldFactory.apply(seed);
+            Random input = new Random(seed);
+            int heldKey = -1;
+            for(int tick : ticks) {
+                while(world.getTickCount() < tick) {
+                    if(inputInterval > 0 && input.nextInt(inputInterval) == 0) {
+                        if(heldKey != -1) {
+                            world.queueInput(heldKey, false);
+                        }
+                        heldKey = KEYS[input.nextInt(KEYS.length)];
+                        world.queueInput(heldKey, true);
+                    }
+                    if(world.isGameEnded() && world.getTickCount() % 100 == 0) {
+                        world.queueInput(KeyEvent.VK_R, true);
+                    }
+                    world.tick(GamePanel.TIME_INTERVAL);
+                }
+                frame.accept(world, tick);
+            }
+        }
+
+        /**
+         * Gets the pixels of an image.
+         *
+         * @param image An image of TYPE_INT_RGB.
+         * @return The pixels, backing the image.
+         */
+        private static int[] getPixels(BufferedImage image) {
+            return ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        }
+
+        /**
+         * Hashes the pixels of an image.
+         *
+         * @param image An image of TYPE_INT_RGB.
+         * @return The first 16 bytes of the SHA-256 of the pixels as hex.
+         */
+        private static String hash(BufferedImage image) {
+            int[] pixels = getPixels(image);
+            ByteBuffer bytes = ByteBuffer.allocate(pixels.length * Integer.BYTES);
+            bytes.asIntBuffer().put(pixels);
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.array());
+                StringBuilder hex = new StringBuilder();
+                for(int i = 0; i < 16; i++) {
+                    hex.append(String.format("%02x", digest[i]));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * RenderSnapshot class:
+ * Everything needed to draw one frame of a World, copied at the end of a tick. Nothing in a
+ * snapshot changes after it is created, so the simulation thread can hand it to the painting
+ * thread through an atomic reference and carry on with the next tick, while the painting thread
+ * draws a consistent frame without any locks.
+ */
+public class RenderSnapshot {
+    /**
+     * Distance in pixels beyond its rectangle that an object or frog may draw, such as the wheels
+     * of a truck, so those this close to a band are drawn in it as well.
+     */
+    private static final int BAND_MARGIN = GamePanel.SEGMENT_HEIGHT / 2;
+
+    /**
+     * The background as it was when the snapshot was taken.
+     */
+    private final Background background;
+    /**
+     * Copies of every moving object.
+     */
+    private final MovingObject[] objects;
+    /**
+     * Copies of every frog drawn on the field.
+     */
+    private final Frog[] frogs;
+    /**
+     * The score and remaining lives.
+     */
+    private final int score, lives;
+    /**
+     * True if the game had ended.
+     */
+    private final boolean gameEnded;
+    /**
+     * The tick count of the world when the snapshot was taken.
+     */
+    private final long tickCount;
+
+    /**
+     * Copies the state of a world that is needed to draw it.
+     * Must be called from the thread that ticks the world.
+     *
+     * @param world The world to copy.
+     */
+    public RenderSnapshot(World world) {
+        background = world.getBackground().snapshot();
+        List<MovingObject> objectList = world.getObjectList();
+        objects = new MovingObject[objectList.size()];
+        for(int i = 0; i < objects.length; i++) {
+            objects[i] = objectList.get(i).copyForRendering();
+        }
+        Player player = world.getPlayer();
+        List<Frog> playerFrogs = player.getFrogs();
+        frogs = new Frog[playerFrogs.size()];
+        for(int i = 0; i < frogs.length; i++) {
+            Frog frog = playerFrogs.get(i);
+            frogs[i] = new Frog(new Position(frog.position), frog.width, frog.height);
+        }
+        score = player.getScore();
+        lives = player.getLives();
+        gameEnded = world.isGameEnded();
+        tickCount = world.getTickCount();
+    }
+
+    /**
+     * Draws the snapshot the same way World.paint() draws the world.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     * @param hud Draws the lives and score. Owned by the thread that is painting.
+     */
+    public void paint(Graphics g, Hud hud) {
+        background.paint(g);
+        for(MovingObject object : objects) {
+            object.paint(g);
+        }
+        for(Frog frog : frogs) {
+            frog.paint(g);
+        }
+        hud.paint(g, score, lives);
+    }
+
+    /**
+     * Draws the part of the snapshot in a band of rows, for the BandRenderer. The background is
+     * drawn whole and left for the clip to cut down, while only the objects and frogs within
+     * BAND_MARGIN of the band are drawn, in the same order as paint().
+     *
+     * @param g Reference to the Graphics object for rendering, clipped to the band.
+     * @param top Y coordinate of the top of the band.
+     * @param bottom Y coordinate of the bottom of the band, exclusive.
+     * @param hud Draws the lives and score, or null when the band does not show them.
+     */
+    public void paintBand(Graphics g, int top, int bottom, Hud hud) {
+        background.paint(g);
+        for(MovingObject object : objects) {
+            if(object.position.y - BAND_MARGIN < bottom && object.position.y + object.height + BAND_MARGIN > top) {
+                object.paint(g);
+            }
+        }
+        for(Frog frog : frogs) {
+            if(frog.position.y - BAND_MARGIN < bottom && frog.position.y + frog.height + BAND_MARGIN > top) {
+                frog.paint(g);
+            }
+        }
+        if(hud != null) {
+            hud.paint(g, score, lives);
+        }
+    }
+
+    /**
+     * Gets the number of moving objects in the snapshot.
+     *
+     * @return Number of moving objects drawn.
+     */
+    public int getObjectCount() {
+        return objects.length;
+    }
+
+    /**
+     * Gets if the game had ended.
+     *
+     * @return True if the game had ended when the snapshot was taken.
+     */
+    public boolean isGameEnded() {
+        return gameEnded;
+    }
+
+    /**
+     * Gets the score.
+     *
+     * @return The score when the snapshot was taken.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the tick the snapshot was taken at.
+     *
+     * @return The world's tick count when the snapshot was taken.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+}
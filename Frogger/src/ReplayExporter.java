@@ -0,0 +1,182 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * ReplayExporter class:
+ * Renders a spectator feed to a sequence of PNG frames much faster than real time. The feed is
+ * split into one contiguous range of ticks per render thread. Every render thread replays the
+ * feed from the start on its own World, since the simulation is deterministic, skips to the start
+ * of its range without drawing, then draws each frame of its range offscreen. Finished frames are
+ * handed to a separate pool of encoder threads so PNG encoding overlaps with rendering. Images are
+ * reused from a fixed pool, which also stops rendering from getting too far ahead of encoding.
+ */
+public class ReplayExporter {
+    /**
+     * Number of ticks rendered after the last event of the feed, so the ending is visible.
+     */
+    private static final int TAIL_TICKS = 2000 / GamePanel.TIME_INTERVAL;
+
+    /**
+     * Exports a feed as frames.
+     * "feed.bin outputDirectory [frameStep] [renderThreads] [encoderThreads]" writes every
+     * frameStep ticks (1 by default) as outputDirectory/frame-000000.png onwards.
+     *
+     * @param args The feed, the output directory, and optionally the frame step and thread counts.
+     * @throws IOException If the feed could not be read or a frame could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: ReplayExporter <feed.bin> <outputDirectory> [frameStep] [renderThreads] [encoderThreads]");
+            return;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int frameStep = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int renderThreads = args.length > 3 ? Integer.parseInt(args[3]) : Math.max(1, processors / 2);
+        int encoderThreads = args.length > 4 ? Integer.parseInt(args[4]) : Math.max(1, processors - renderThreads);
+
+        long start = System.nanoTime();
+        ReplayExporter exporter = new ReplayExporter(Files.readAllBytes(Paths.get(args[0])), frameStep);
+        int frames = exporter.export(Paths.get(args[1]), renderThreads, encoderThreads);
+        System.out.println("Exported " + frames + " frames in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * The complete feed, replayed separately by every render thread.
+     */
+    private final byte[] feed;
+    /**
+     * Number of ticks between each exported frame.
+     */
+    private final int frameStep;
+    /**
+     * Number of frames in the export.
+     */
+    private final int frameCount;
+
+    /**
+     * Prepares to export a feed, reading through it once to find how long it is.
+     *
+     * @param feed The complete spectator feed.
+     * @param frameStep Number of ticks between each exported frame. At least 1.
+     * @throws IOException If the feed is not a supported spectator feed.
+     */
+    public ReplayExporter(byte[] feed, int frameStep) throws IOException {
+        this.feed = feed;
+        this.frameStep = Math.max(1, frameStep);
+        long lastTick = SpectatorReplay.findLastEventTick(new ByteArrayInputStream(feed)) + TAIL_TICKS;
+        frameCount = (int)(lastTick / this.frameStep) + 1;
+    }
+
+    /**
+     * Gets the number of frames the export will write.
+     *
+     * @return Number of frames.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Renders and encodes every frame into the directory.
+     *
+     * @param directory Where to write the frames. Created if it does not exist.
+     * @param renderThreads Number of threads simulating and drawing frames.
+     * @param encoderThreads Number of threads encoding frames to PNG.
+     * @return Number of frames written.
+     * @throws IOException If the directory could not be created or a frame could not be written.
+     */
+    public int export(Path directory, int renderThreads, int encoderThreads) throws IOException {
+        Files.createDirectories(directory);
+        BlockingQueue<BufferedImage> imagePool = new ArrayBlockingQueue<>(renderThreads + 2 * encoderThreads);
+        while(imagePool.remainingCapacity() > 0) {
+            imagePool.add(new BufferedImage(GamePanel.PANEL_WIDTH, GamePanel.PANEL_HEIGHT, BufferedImage.TYPE_INT_RGB));
+        }
+        AtomicReference<IOException> encodeError = new AtomicReference<>();
+        ExecutorService renderers = Executors.newFixedThreadPool(renderThreads);
+        ExecutorService encoders = Executors.newFixedThreadPool(encoderThreads);
+        try {
+            List<Future<?>> ranges = new ArrayList<>();
+            int framesPerRange = (frameCount + renderThreads - 1) / renderThreads;
+            for(int first = 0; first < frameCount; first += framesPerRange) {
+                int firstFrame = first, endFrame = Math.min(frameCount, first + framesPerRange);
+                ranges.add(renderers.submit(() -> {
+                    renderRange(firstFrame, endFrame, directory, imagePool, encoders, encodeError);
+                    return null;
+                }));
+            }
+            for(Future<?> range : ranges) {
+                range.get();
+            }
+            encoders.shutdown();
+            encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting", e);
+        } finally {
+            renderers.shutdownNow();
+            encoders.shutdownNow();
+        }
+        if(encodeError.get() != null) {
+            throw encodeError.get();
+        }
+        return frameCount;
+    }
+
+    /**
+     * Replays the feed from the start up to the first frame of the range, then draws every frame
+     * of the range and hands it to the encoders.
+     *
+     * @param firstFrame First frame to draw.
+     * @param endFrame The frame after the last frame to draw.
+     * @param directory Where the encoders write the frames.
+     * @param imagePool Images free to draw into, returned by the encoders once written.
+     * @param encoders Where to submit frames for encoding.
+     * @param encodeError Set to the first error hit by an encoder.
+     * @throws IOException If the feed could not be read.
+     * @throws InterruptedException If interrupted while waiting for a free image.
+     */
+    private void renderRange(int firstFrame, int endFrame, Path directory, BlockingQueue<BufferedImage> imagePool,
+                             ExecutorService encoders, AtomicReference<IOException> encodeError)
+            throws IOException, InterruptedException {
+        try(SpectatorReplay replay = new SpectatorReplay(new ByteArrayInputStream(feed))) {
+            for(int frame = firstFrame; frame < endFrame && encodeError.get() == null; frame++) {
+                replay.advanceTo((long)frame * frameStep);
+                BufferedImage image = imagePool.take();
+                Graphics2D g = image.createGraphics();
+                GamePanel.paintWorld(replay.getWorld(), g);
+                g.dispose();
+                Path file = directory.resolve(String.format("frame-%06d.png", frame));
+                encoders.execute(() -> {
+                    try {
+                        ImageIO.write(image, "png", file.toFile());
+                    } catch (IOException e) {
+                        encodeError.compareAndSet(null, e);
+                    } finally {
+                        imagePool.add(image);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+import java.awt.event.KeyEvent;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * ScalingLoadTest class:
+ * Sweeps synthetic boards headlessly to show where ticking stops scaling. Every configuration
+ * is a number of lanes, objects per lane, concurrent frogs, and worker threads. Each frog plays
+ * its own World on a generated level with that many lanes and objects, hopping up at random and
+ * restarting when its game ends, the same way sessions are run by the GameServer. A round ticks
+ * every world once, spread across a pool of the worker threads, which also updates the lanes of
+ * any world with enough of them to split.
+ *
+ * For each configuration one CSV line is written with the world ticks per second, the mean time
+ * of a round, the mean and p99 time of a single world's tick (timed around each tick, so a slow
+ * tick is not hidden by the other worlds of its round), the heap used per entity (moving object
+ * or frog), and the speedup and efficiency over the same board with the fewest threads, so the
+ * curve shows both the cost of bigger boards and where adding threads stops helping.
+ */
+public class ScalingLoadTest {
+    /**
+     * Lane counts swept when none are given.
+     */
+    private static final int[] DEFAULT_LANES = { 10, 100, 1000 };
+    /**
+     * Objects per lane swept when none are given.
+     */
+    private static final int[] DEFAULT_OBJECTS_PER_LANE = { 2, 8, 32 };
+    /**
+     * Concurrent frog counts swept when none are given.
+     */
+    private static final int[] DEFAULT_FROGS = { 1, 16, 256 };
+    /**
+     * Number of rows between each copy of the default lanes, so the copies after the first are
+     * all below the spawn row where they never reach the frog.
+     */
+    private static final int ROWS_PER_COPY = Player.SPAWN_ROW + 2;
+    /**
+     * Time in ms each configuration runs before it is measured.
+     */
+    private static final int WARM_UP_TIME = 300;
+    /**
+     * Time in ms each configuration is measured for when none is given.
+     */
+    private static final int DEFAULT_MEASURE_TIME = 1000;
+    /**
+     * Most ticks recorded for the tick time percentiles, shared evenly between the worlds. Any
+     * after these are counted but not recorded.
+     */
+    private static final int MAX_RECORDED_TICKS = 1 << 20;
+    /**
+     * Each frog hops up on average once every this many ticks.
+     */
+    private static final int HOP_INTERVAL = 25;
+    /**
+     * Header line of the CSV file.
+     */
+    private static final String HEADER = "lanes,objectsPerLane,frogs,threads,objects,rounds,ticksPerSecond,"
+            + "meanRoundMicros,meanTickMicros,p99TickMicros,heapBytesPerEntity,speedup,efficiency";
+
+    /**
+     * Runs every configuration and writes the results as a CSV file.
+     * "output.csv [lanes] [objectsPerLane] [frogs] [threads] [measureMillis]" where each of the
+     * counts is a comma separated list to sweep. Threads default to powers of two up to the
+     * number of processors.
+     *
+     * @param args The output file, and optionally the lists to sweep and how long to measure each.
+     * @throws IOException If the output could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: ScalingLoadTest <output.csv> [lanes] [objectsPerLane] [frogs] [threads] [measureMillis]");
+            return;
+        }
+        int[] laneCounts = args.length > 1 ? parseList(args[1]) : DEFAULT_LANES;
+        int[] objectCounts = args.length > 2 ? parseList(args[2]) : DEFAULT_OBJECTS_PER_LANE;
+        int[] frogCounts = args.length > 3 ? parseList(args[3]) : DEFAULT_FROGS;
+        int[] threadCounts = args.length > 4 ? parseList(args[4]) : getDefaultThreads();
+        int measureTime = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_MEASURE_TIME;
+        Arrays.sort(threadCounts);
+        // Run the first configuration once without recording it, so class loading and the first
+        // JIT compilation do not land in its results.
+        run(laneCounts[0], objectCounts[0], frogCounts[0], threadCounts[0], WARM_UP_TIME);
+
+        try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            writer.write(HEADER + System.lineSeparator());
+            for(int lanes : laneCounts) {
+                for(int objectsPerLane : objectCounts) {
+                    for(int frogs : frogCounts) {
+                        double baseTicksPerSecond = 0;
+                        for(int threads : threadCounts) {
+                            Result result = run(lanes, objectsPerLane, frogs, threads, measureTime);
+                            if(baseTicksPerSecond == 0) {
+                                baseTicksPerSecond = result.ticksPerSecond;
+                            }
+                            double speedup = result.ticksPerSecond / baseTicksPerSecond;
+                            String line = String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%.0f,%.1f,%.1f,%.1f,%.0f,%.2f,%.2f",
+                                    lanes, objectsPerLane, frogs, threads, result.objects, result.rounds,
+                                    result.ticksPerSecond, result.meanRoundMicros, result.meanTickMicros, result.p99TickMicros,
+                                    result.heapBytesPerEntity, speedup, speedup / ((double)threads / threadCounts[0]));
+                            writer.write(line + System.lineSeparator());
+                            writer.flush();
+                            System.out.println(line);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the worlds of one configuration, warms them up, and measures them.
+     *
+     * @param laneCount Number of lanes in each world.
+     * @param objectsPerLane Number of objects in each lane.
+     * @param frogCount Number of worlds, each with its own frog.
+     * @param threads Number of worker threads.
+     * @param measureTime Time in ms to measure for.
+     * @return The measurements.
+     */
+    private static Result run(int laneCount, int objectsPerLane, int frogCount, int threads, int measureTime) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            LaneTable lanes = createLanes(laneCount, objectsPerLane);
+            long heapBefore = getUsedHeap();
+            World[] worlds = new World[frogCount];
+            Random[] inputs = new Random[frogCount];
+            for(int i = 0; i < frogCount; i++) {
+                worlds[i] = new World(i, lanes);
+                worlds[i].setLaneUpdatePool(pool);
+                inputs[i] = new Random(i);
+            }
+            long heapAfter = getUsedHeap();
+            int objects = worlds[0].getObjectList().size();
+            long[][] tickNanos = new long[frogCount][Math.max(1, MAX_RECORDED_TICKS / frogCount)];
+            int[] recordedTicks = new int[frogCount];
+
+            Runnable round = threads == 1 || frogCount == 1
+                    ? () -> tickAll(worlds, inputs, 0, frogCount, tickNanos, recordedTicks)
+                    : () -> pool.submit(() -> IntStream.range(0, frogCount).parallel()
+                            .forEach(i -> tickAll(worlds, inputs, i, i + 1, tickNanos, recordedTicks))).join();
+            runFor(round, WARM_UP_TIME);
+            Arrays.fill(recordedTicks, 0);
+            long start = System.nanoTime();
+            int rounds = runFor(round, measureTime);
+            long elapsed = System.nanoTime() - start;
+
+            long[] allTickNanos = new long[Arrays.stream(recordedTicks).sum()];
+            int recorded = 0;
+            long totalTickNanos = 0;
+            for(int i = 0; i < frogCount; i++) {
+                System.arraycopy(tickNanos[i], 0, allTickNanos, recorded, recordedTicks[i]);
+                recorded += recordedTicks[i];
+            }
+            for(long nanos : allTickNanos) {
+                totalTickNanos += nanos;
+            }
+            Arrays.sort(allTickNanos);
+
+            Result result = new Result();
+            result.objects = objects;
+            result.rounds = rounds;
+            result.ticksPerSecond = (double)rounds * frogCount / elapsed * TimeUnit.SECONDS.toNanos(1);
+            result.meanRoundMicros = (double)elapsed / rounds / 1000;
+            result.meanTickMicros = (double)totalTickNanos / Math.max(1, recorded) / 1000;
+            result.p99TickMicros = recorded == 0 ? 0
+                    : allTickNanos[Math.max(0, (int)Math.ceil(recorded * 0.99) - 1)] / 1000.0;
+            result.heapBytesPerEntity = (double)(heapAfter - heapBefore) / ((long)(objects + 1) * frogCount);
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs rounds for a length of time.
+     *
+     * @param round Ticks every world once.
+     * @param time Time in ms to run for.
+     * @return Number of rounds run.
+     */
+    private static int runFor(Runnable round, int time) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(time);
+        int rounds = 0;
+        while(System.nanoTime() < end) {
+            round.run();
+            rounds++;
+        }
+        return rounds;
+    }
+
+    /**
+     * Ticks a range of the worlds once, giving each frog its scripted input first, and records
+     * how long each world's tick took. Each world only records into its own slots, so ranges can
+     * be ticked on different threads.
+     *
+     * @param worlds Every world.
+     * @param inputs The random source of each world's input.
+     * @param from Index of the first world to tick.
+     * @param to Index after the last world to tick.
+     * @param tickNanos Where each world records the time of its ticks in ns until its array is full.
+     * @param recordedTicks Number of ticks each world has recorded.
+     */
+    private static void tickAll(World[] worlds, Random[] inputs, int from, int to, long[][] tickNanos, int[] recordedTicks) {
+        for(int i = from; i < to; i++) {
+            World world = worlds[i];
+            if(world.isGameEnded()) {
+                world.queueInput(KeyEvent.VK_R, true);
+            } else if(inputs[i].nextInt(HOP_INTERVAL) == 0) {
+                world.queueInput(KeyEvent.VK_UP, true);
+            }
+            long start = System.nanoTime();
+            world.tick(GamePanel.TIME_INTERVAL);
+            long nanos = System.nanoTime() - start;
+            if(recordedTicks[i] < tickNanos[i].length) {
+                tickNanos[i][recordedTicks[i]++] = nanos;
+            }
+        }
+    }
+
+    /**
+     * Generates a level by repeating the default lanes, each copy ROWS_PER_COPY rows further down,
+     * with every lane holding the same number of objects spread along it.
+     *
+     * @param laneCount Number of lanes.
+     * @param objectsPerLane Number of objects in each lane.
+     * @return The generated level.
+     */
+    private static LaneTable createLanes(int laneCount, int objectsPerLane) {
+        LaneTable template = LaneTable.getDefault();
+        int templateCount = template.getLaneCount();
+        LaneTable lanes = new LaneTable(laneCount);
+        for(int i = 0; i < laneCount; i++) {
+            int lane = i % templateCount;
+            int spacing = Math.max(1, template.getSpacing(lane) * template.getObjectCount(lane) / objectsPerLane);
+            lanes.addLane(template.getRow(lane) + i / templateCount * ROWS_PER_COPY, template.getType(lane),
+                    template.isMovingLeft(lane), template.getMoveDistance(lane), template.getMoveDelay(lane),
+                    objectsPerLane, template.getOffset(lane), spacing, template.getMinWidth(lane),
+                    template.getMaxWidth(lane), template.getEntry(lane));
+        }
+        return lanes;
+    }
+
+    /**
+     * Gets the heap in use after asking for a garbage collection.
+     *
+     * @return Used heap in bytes.
+     */
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Gets the default thread counts, powers of two up to the number of processors and the number itself.
+     *
+     * @return Thread counts in ascending order.
+     */
+    private static int[] getDefaultThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return IntStream.concat(IntStream.iterate(1, threads -> threads < processors, threads -> threads * 2),
+                IntStream.of(processors)).toArray();
+    }
+
+    /**
+     * Parses a comma separated list of counts.
+     *
+     * @param list The list, such as "1,10,100".
+     * @return The counts.
+     */
+    private static int[] parseList(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+    }
+
+    /**
+     * The measurements of one configuration.
+     */
+    private static class Result {
+        /**
+         * Number of moving objects in each world.
+         */
+        private int objects;
+        /**
+         * Number of rounds measured.
+         */
+        private int rounds;
+        /**
+         * World ticks run per second across all the frogs.
+         */
+        private double ticksPerSecond;
+        /**
+         * Mean time in microseconds to tick every world once.
+         */
+        private double meanRoundMicros;
+        /**
+         * Mean and 99th percentile time in microseconds of a single world's tick.
+         */
+        private double meanTickMicros, p99TickMicros;
+        /**
+         * Heap used by the worlds divided by their moving objects and frogs.
+         */
+        private double heapBytesPerEntity;
+    }
+}
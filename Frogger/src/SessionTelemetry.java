@@ -0,0 +1,80 @@
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * SessionTelemetry class:
+ * Listens to the events of one World and publishes them as records to a shared TelemetryWriter.
+ * Deaths, scores, and restarts are published as they happen, while tick timings are gathered
+ * into a summary published once every SUMMARY_TICKS ticks. Only ever called on the thread that
+ * ticks the world, and publishing never blocks, so it adds no I/O to the tick.
+ */
+public class SessionTelemetry implements GameEventListener {
+    /**
+     * Number of ticks summarised in each TICKS record.
+     */
+    public static final int SUMMARY_TICKS = 250;
+
+    /**
+     * Where the records are published.
+     */
+    private final TelemetryWriter writer;
+    /**
+     * Identifier of the session written with every record.
+     */
+    private final int sessionId;
+    /**
+     * The world being recorded, used for the tick count of each record.
+     */
+    private final World world;
+    /**
+     * Number of ticks gathered into the current summary.
+     */
+    private int summaryTicks;
+    /**
+     * Total and longest duration of the ticks in the current summary in ns.
+     */
+    private long summaryTotalNanos, summaryMaxNanos;
+
+    /**
+     * Creates a recorder for a world. Add it to the world as a listener to start recording.
+     *
+     * @param writer Where the records are published.
+     * @param sessionId Identifier of the session written with every record.
+     * @param world The world to record.
+     */
+    public SessionTelemetry(TelemetryWriter writer, int sessionId, World world) {
+        this.writer = writer;
+        this.sessionId = sessionId;
+        this.world = world;
+    }
+
+    @Override
+    public void onFrogDeath(DeathCause cause) {
+        writer.publish(sessionId, TelemetryWriter.DEATH, world.getTickCount(), cause.ordinal(), 0);
+    }
+
+    @Override
+    public void onFrogScored(int score) {
+        writer.publish(sessionId, TelemetryWriter.SCORE, world.getTickCount(), score, 0);
+    }
+
+    @Override
+    public void onRestart() {
+        writer.publish(sessionId, TelemetryWriter.RESTART, world.getTickCount(), 0, 0);
+    }
+
+    @Override
+    public void onTickCompleted(long tickNanos) {
+        summaryTicks++;
+        summaryTotalNanos += tickNanos;
+        if(tickNanos > summaryMaxNanos) {
+            summaryMaxNanos = tickNanos;
+        }
+        if(summaryTicks == SUMMARY_TICKS) {
+            writer.publish(sessionId, TelemetryWriter.TICKS, world.getTickCount(),
+                    summaryTotalNanos / summaryTicks, summaryMaxNanos);
+            summaryTicks = 0;
+            summaryTotalNanos = summaryMaxNanos = 0;
+        }
+    }
+}
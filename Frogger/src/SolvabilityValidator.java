@@ -0,0 +1,232 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * SolvabilityValidator class:
+ * Sweeps many seeds of one or more levels with the ReachabilitySolver to find lane settings whose
+ * random object widths can leave the level uncrossable for long stretches. For every level and
+ * seed, a frog is spawned every START_STEP ticks over the horizon and the fastest crossing from
+ * each spawn is found. The results are streamed to a CSV file as they finish, one line per level
+ * and seed, with the crossing time statistics and the windows of spawn ticks with no crossing.
+ *
+ * Every worker thread takes the next level and seed from a shared counter, so millions of seeds
+ * are swept without queuing a task for each. Lines are written in the order they finish.
+ */
+public class SolvabilityValidator {
+    /**
+     * Number of ticks simulated for each seed.
+     */
+    public static final int HORIZON_TICKS = 60000 / GamePanel.TIME_INTERVAL;
+    /**
+     * Most ticks a crossing can take before the spawn tick counts as uncrossable.
+     */
+    public static final int MAX_CROSSING_TICKS = 30000 / GamePanel.TIME_INTERVAL;
+    /**
+     * Number of ticks between each spawn tick tested.
+     */
+    public static final int START_STEP = 500 / GamePanel.TIME_INTERVAL;
+    /**
+     * Header line of the CSV file.
+     */
+    private static final String HEADER = "level,seed,starts,crossable,minTicks,meanTicks,medianTicks,p90Ticks,maxTicks,"
+            + "uncrossableWindows,longestUncrossableTicks,windows";
+
+    /**
+     * Validates levels and writes the results as a CSV file.
+     * "output.csv seedCount [firstSeed] [threads] [level files...]" sweeps seedCount seeds from
+     * firstSeed (0 by default) of each level (the default level when none are given).
+     *
+     * @param args The output file, the number of seeds, and optionally the first seed, thread count, and levels.
+     * @throws IOException If a level could not be read or the output could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: SolvabilityValidator <output.csv> <seedCount> [firstSeed] [threads] [level files...]");
+            return;
+        }
+        long seedCount = Long.parseLong(args[1]);
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        List<String> levelNames = new ArrayList<>();
+        List<LaneTable> levels = new ArrayList<>();
+        for(int i = 4; i < args.length; i++) {
+            levelNames.add(Paths.get(args[i]).getFileName().toString());
+            levels.add(LaneTable.load(Paths.get(args[i])));
+        }
+        if(levels.isEmpty()) {
+            levelNames.add("default");
+            levels.add(LaneTable.getDefault());
+        }
+
+        long start = System.nanoTime();
+        try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            SolvabilityValidator validator = new SolvabilityValidator(levelNames, levels, firstSeed, seedCount);
+            long unsolvable = validator.run(writer, threads);
+            System.out.println("Validated " + seedCount * levels.size() + " seeds in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, "
+                    + unsolvable + " with uncrossable windows");
+        }
+    }
+
+    /**
+     * Names written with the results of each level.
+     */
+    private final List<String> levelNames;
+    /**
+     * The levels to validate.
+     */
+    private final List<LaneTable> levels;
+    /**
+     * The first seed of each level validated.
+     */
+    private final long firstSeed;
+    /**
+     * Number of seeds of each level validated.
+     */
+    private final long seedCount;
+    /**
+     * Index of the next level and seed to validate, counting through every seed of a level before the next level.
+     */
+    private final AtomicLong nextTask;
+    /**
+     * Number of level and seeds validated that had any uncrossable window.
+     */
+    private final AtomicLong uncrossableCount;
+    /**
+     * The first error hit while writing a line, which stops every worker.
+     */
+    private final AtomicReference<IOException> writeError;
+
+    /**
+     * Prepares to validate seeds of levels.
+     *
+     * @param levelNames Names written with the results of each level.
+     * @param levels The levels to validate.
+     * @param firstSeed The first seed of each level to validate.
+     * @param seedCount Number of seeds of each level to validate.
+     */
+    public SolvabilityValidator(List<String> levelNames, List<LaneTable> levels, long firstSeed, long seedCount) {
+        this.levelNames = levelNames;
+        this.levels = levels;
+        this.firstSeed = firstSeed;
+        this.seedCount = seedCount;
+        nextTask = new AtomicLong();
+        uncrossableCount = new AtomicLong();
+        writeError = new AtomicReference<>();
+    }
+
+    /**
+     * Validates every seed of every level across threads, writing a CSV line for each as it finishes.
+     *
+     * @param writer Where to write the CSV. The header is written first.
+     * @param threads Number of threads to validate on.
+     * @return Number of level and seeds with any uncrossable window.
+     * @throws IOException If the output could not be written.
+     */
+    public long run(Writer writer, int threads) throws IOException {
+        writer.write(HEADER + System.lineSeparator());
+        List<Thread> workers = new ArrayList<>();
+        for(int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> validateTasks(writer), "frogger-validator-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            for(Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while validating", e);
+        }
+        if(writeError.get() != null) {
+            throw writeError.get();
+        }
+        return uncrossableCount.get();
+    }
+
+    /**
+     * Validates levels and seeds taken from the shared counter until there are none left.
+     *
+     * @param writer Where to write each line.
+     */
+    private void validateTasks(Writer writer) {
+        long taskCount = seedCount * levels.size();
+        long task;
+        while(writeError.get() == null && (task = nextTask.getAndIncrement()) < taskCount) {
+            int level = (int)(task / seedCount);
+            long seed = firstSeed + task % seedCount;
+            String line = levelNames.get(level) + "," + seed + "," + validate(levels.get(level), seed);
+            try {
+                synchronized(writer) {
+                    writer.write(line + System.lineSeparator());
+                }
+            } catch (IOException e) {
+                writeError.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Finds the fastest crossing from every tested spawn tick of one seed of a level.
+     *
+     * @param level The level.
+     * @param seed The seed.
+     * @return The CSV columns after the level and seed.
+     */
+    private String validate(LaneTable level, long seed) {
+        ReachabilitySolver solver = new ReachabilitySolver(seed, level, HORIZON_TICKS);
+        int starts = (HORIZON_TICKS - MAX_CROSSING_TICKS) / START_STEP + 1;
+        int[] crossingTicks = new int[starts];
+        int[] sorted = new int[starts];
+        int crossable = 0;
+        long totalTicks = 0;
+        for(int i = 0; i < starts; i++) {
+            crossingTicks[i] = solver.findCrossingTicks(i * START_STEP, MAX_CROSSING_TICKS);
+            if(crossingTicks[i] >= 0) {
+                sorted[crossable++] = crossingTicks[i];
+                totalTicks += crossingTicks[i];
+            }
+        }
+        Arrays.sort(sorted, 0, crossable);
+
+        // Each run of spawn ticks without a crossing is a window lasting until the next spawn tick tested.
+        StringBuilder windows = new StringBuilder();
+        int windowCount = 0, longestWindow = 0;
+        for(int i = 0; i < starts; i++) {
+            if(crossingTicks[i] >= 0) continue;
+            int end = i;
+            while(end + 1 < starts && crossingTicks[end + 1] < 0) {
+                end++;
+            }
+            int windowStart = i * START_STEP, windowEnd = (end + 1) * START_STEP;
+            windows.append(windowCount++ == 0 ? "" : " ").append(windowStart).append('-').append(windowEnd);
+            longestWindow = Math.max(longestWindow, windowEnd - windowStart);
+            i = end;
+        }
+        if(windowCount > 0) {
+            uncrossableCount.incrementAndGet();
+        }
+
+        if(crossable == 0) {
+            return starts + ",0,-1,-1,-1,-1,-1," + windowCount + "," + longestWindow + "," + windows;
+        }
+        return starts + "," + crossable + "," + sorted[0] + "," + String.format(Locale.ROOT, "%.1f", (double)totalTicks / crossable)
+                + "," + sorted[crossable / 2] + "," + sorted[(int)Math.ceil(crossable * 0.9) - 1]
+                + "," + sorted[crossable - 1] + "," + windowCount + "," + longestWindow + "," + windows;
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * SpectatorReplay class:
+ * Re-simulates a World locally from a feed written by a SpectatorStream. Input and tuning
+ * events are applied at the tick they were recorded, and every outcome event in the feed is
+ * compared against what the local simulation produced to detect desyncs.
+ */
+public class SpectatorReplay implements AutoCloseable {
+    /**
+     * Where the feed is read from.
+     */
+    private final DataInputStream in;
+    /**
+     * The locally simulated world.
+     */
+    private final World world;
+    /**
+     * Outcome events produced by the local simulation that have not been compared yet.
+     * Each entry is the tick, type, and up to two payload values.
+     */
+    private final Queue<long[]> simulatedOutcomes;
+    /**
+     * The next event read from the feed, or null when the feed has ended.
+     */
+    private long[] nextEvent;
+    /**
+     * The lanes of the next event when it is a TUNING event, otherwise null.
+     */
+    private LaneTable nextTuning;
+    /**
+     * Tick of the last event read, used to turn tick deltas back into ticks.
+     */
+    private long lastEventTick;
+    /**
+     * Number of outcome events in the feed that did not match the local simulation.
+     */
+    private int desyncCount;
+
+    /**
+     * Reads the header and creates the world from the seed and level ready to replay.
+     *
+     * @param in Where to read the feed from.
+     * @throws IOException If the header is missing or not a supported feed.
+     */
+    public SpectatorReplay(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        if(this.in.readInt() != SpectatorStream.MAGIC) {
+            throw new IOException("Not a spectator stream");
+        }
+        int version = this.in.readUnsignedByte();
+        if(version != SpectatorStream.VERSION) {
+            throw new IOException("Unsupported spectator stream version " + version);
+        }
+        long seed = this.in.readLong();
+        int level = this.in.readUnsignedByte();
+        if(level == SpectatorStream.ENDLESS_LEVEL) {
+            world = new World(seed, new LaneRing());
+        } else if(level == SpectatorStream.TABLE_LEVEL) {
+            world = new World(seed, readLanes());
+        } else {
+            throw new IOException("Unknown spectator stream level " + level);
+        }
+        simulatedOutcomes = new ArrayDeque<>();
+        world.addEventListener(new OutcomeRecorder());
+        readNextEvent();
+    }
+
+    /**
+     * Reads through a feed without simulating it to find the tick of its last event.
+     *
+     * @param in Where to read the feed from. Read to the end but not closed.
+     * @return Tick of the last event in the feed, or 0 if it has none.
+     * @throws IOException If the feed could not be read or is not a supported feed.
+     */
+    public static long findLastEventTick(InputStream in) throws IOException {
+        SpectatorReplay replay = new SpectatorReplay(in);
+        long lastTick = 0;
+        while(replay.nextEvent != null) {
+            lastTick = replay.nextEvent[0];
+            replay.readNextEvent();
+        }
+        return lastTick;
+    }
+
+    /**
+     * Simulates the world up to the target tick, applying input from the feed along the way.
+     *
+     * @param targetTick The tick count to simulate up to.
+     * @return True if the feed still has events after the target tick.
+     * @throws IOException If the feed could not be read.
+     */
+    public boolean advanceTo(long targetTick) throws IOException {
+        while(true) {
+            if(nextEvent != null && nextEvent[1] == SpectatorStream.INPUT && nextEvent[0] <= world.getTickCount()) {
+                world.handleInput((int)nextEvent[2] >> 1, (nextEvent[2] & 1) == 1);
+                readNextEvent();
+            } else if(nextEvent != null && nextEvent[1] == SpectatorStream.TUNING && nextEvent[0] <= world.getTickCount()) {
+                world.applyLaneTuning(nextTuning);
+                readNextEvent();
+            } else if(nextEvent != null && nextEvent[1] != SpectatorStream.INPUT && nextEvent[1] != SpectatorStream.TUNING
+                    && nextEvent[0] < world.getTickCount()) {
+                verifyOutcome(nextEvent);
+                readNextEvent();
+            } else if(world.getTickCount() < targetTick) {
+                world.tick(GamePanel.TIME_INTERVAL);
+            } else {
+                return nextEvent != null;
+            }
+        }
+    }
+
+    /**
+     * Gets the locally simulated world to draw or inspect.
+     *
+     * @return The world being replayed.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the number of outcome events that did not match the local simulation.
+     *
+     * @return Zero when the replay has matched the feed so far.
+     */
+    public int getDesyncCount() {
+        return desyncCount;
+    }
+
+    /**
+     * Closes the feed.
+     *
+     * @throws IOException If the feed failed to close.
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the lanes of a TABLE_LEVEL header or a TUNING event.
+     *
+     * @return The lanes as they were written.
+     * @throws IOException If the lanes could not be read.
+     */
+    private LaneTable readLanes() throws IOException {
+        int laneCount = SpectatorStream.readVarint(in);
+        LaneTable lanes = new LaneTable(laneCount);
+        for(int lane = 0; lane < laneCount; lane++) {
+            lanes.addLane(in.readInt(), in.readInt(), in.readInt() == 1, in.readInt(), in.readInt(), in.readInt(),
+                    in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+        return lanes;
+    }
+
+    /**
+     * Reads the next event from the feed, or sets it to null at the end of the feed.
+     *
+     * @throws IOException If the feed could not be read.
+     */
+    private void readNextEvent() throws IOException {
+        int type;
+        try {
+            type = in.readUnsignedByte();
+        } catch (EOFException e) {
+            nextEvent = null;
+            return;
+        }
+        lastEventTick += SpectatorStream.readVarLong(in);
+        nextTuning = null;
+        if(type == SpectatorStream.TUNING) {
+            nextTuning = readLanes();
+            nextEvent = new long[] { lastEventTick, type, 0, 0 };
+            return;
+        }
+        long value = SpectatorStream.readVarint(in);
+        long extra = type == SpectatorStream.RESET ? SpectatorStream.readVarint(in) : 0;
+        nextEvent = new long[] { lastEventTick, type, value, extra };
+    }
+
+    /**
+     * Compares an outcome event from the feed against the next one produced locally.
+     *
+     * @param expected The event read from the feed.
+     */
+    private void verifyOutcome(long[] expected) {
+        long[] simulated = simulatedOutcomes.poll();
+        if(simulated == null || simulated[0] != expected[0] || simulated[1] != expected[1]
+                || simulated[2] != expected[2] || simulated[3] != expected[3]) {
+            desyncCount++;
+        }
+    }
+
+    /**
+     * Records the outcome events of the local simulation in the same form as the feed.
+     */
+    private class OutcomeRecorder implements GameEventListener {
+        @Override
+        public void onFrogAttached(int objectIndex) {
+            record(SpectatorStream.ATTACH, objectIndex + 1, 0);
+        }
+
+        @Override
+        public void onFrogDeath(DeathCause cause) {
+            record(SpectatorStream.DEATH, cause.ordinal(), 0);
+        }
+
+        @Override
+        public void onFrogScored(int score) {
+            record(SpectatorStream.SCORE, score, 0);
+        }
+
+        @Override
+        public void onObstacleReset(int objectIndex, int width) {
+            record(SpectatorStream.RESET, objectIndex, width);
+        }
+
+        /**
+         * Adds an outcome ready to be compared with the feed.
+         *
+         * @param type The type of event.
+         * @param value The payload of the event.
+         * @param extra Any second payload value of the event.
+         */
+        private void record(int type, long value, long extra) {
+            simulatedOutcomes.add(new long[] { world.getTickCount(), type, value, extra });
+        }
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * SpectatorStream class:
+ * Records a World as a compact spectator feed. Obstacle motion is deterministic from the
+ * world's seed, so only the seed is sent once followed by the input and outcome events.
+ * A SpectatorReplay re-simulates the world from the feed and uses the outcome events to
+ * check it has not drifted.
+ *
+ * Format: the int MAGIC, a version byte, the seed as a long, and a level byte saying where the
+ * lanes come from: TABLE_LEVEL followed by the lane count as a varint and the eleven values of
+ * every lane as ints in LaneTable.addLane() order, or ENDLESS_LEVEL with nothing after it. Worlds
+ * using a MappedLevel are not recorded, as spectators do not have the level file. Then each event
+ * is a type byte, a varint of the ticks since the previous event, and a varint payload:
+ * INPUT (keyCode shifted left by one with the pressed state in the lowest bit),
+ * ATTACH (object index plus one, 0 when detached), DEATH (DeathCause ordinal),
+ * SCORE (the new score), and RESET (object index followed by the new width). A TUNING event,
+ * written when the world's lanes are retuned while it is recorded, has no varint payload but is
+ * followed by every lane in the same form as the header, so spectators retune at the same tick.
+ *
+ * Game records the feed of the game being played to a file with -Dfrogger.spectate=<file>.
+ */
+public class SpectatorStream implements GameEventListener, AutoCloseable {
+    /**
+     * Identifies the start of a spectator feed ("FRSP").
+     */
+    public static final int MAGIC = 0x46525350;
+    /**
+     * Version of the format written.
+     */
+    public static final int VERSION = 2;
+    /**
+     * Level sources written after the seed.
+     */
+    public static final int TABLE_LEVEL = 0, ENDLESS_LEVEL = 1;
+    /**
+     * Event types written before each event.
+     */
+    public static final int INPUT = 1, ATTACH = 2, DEATH = 3, SCORE = 4, RESET = 5, TUNING = 6;
+
+    /**
+     * The world being recorded.
+     */
+    private final World world;
+    /**
+     * Where the feed is written.
+     */
+    private final DataOutputStream out;
+    /**
+     * Tick of the last event written, used to write ticks as deltas.
+     */
+    private long lastEventTick;
+
+    /**
+     * Writes the header and starts recording events from the world. Must be created before the
+     * world's first tick so spectators simulate from the same starting state.
+     *
+     * @param world The world to record.
+     * @param out Where to write the feed.
+     * @throws IOException If the header could not be written.
+     * @throws IllegalArgumentException If the world's lanes come from a MappedLevel.
+     */
+    public SpectatorStream(World world, OutputStream out) throws IOException {
+        LaneTable lanes = world.getLanes();
+        if(lanes == null && !world.isEndless()) {
+            throw new IllegalArgumentException("Worlds on a mapped level can not be replayed by spectators");
+        }
+        this.world = world;
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(world.getSeed());
+        if(world.isEndless()) {
+            this.out.writeByte(ENDLESS_LEVEL);
+        } else {
+            this.out.writeByte(TABLE_LEVEL);
+            writeLanes(lanes);
+        }
+        lastEventTick = world.getTickCount();
+        world.addEventListener(this);
+    }
+
+    @Override
+    public void onInput(int keyCode, boolean isPressed) {
+        writeEvent(INPUT, keyCode << 1 | (isPressed ? 1 : 0));
+    }
+
+    @Override
+    public void onFrogAttached(int objectIndex) {
+        writeEvent(ATTACH, objectIndex + 1);
+    }
+
+    @Override
+    public void onFrogDeath(DeathCause cause) {
+        writeEvent(DEATH, cause.ordinal());
+    }
+
+    @Override
+    public void onFrogScored(int score) {
+        writeEvent(SCORE, score);
+    }
+
+    @Override
+    public void onObstacleReset(int objectIndex, int width) {
+        try {
+            writeHeader(RESET);
+            writeVarint(out, objectIndex);
+            writeVarint(out, width);
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    @Override
+    public void onLanesRetuned(LaneTable lanes) {
+        try {
+            writeHeader(TUNING);
+            writeLanes(lanes);
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    /**
+     * Writes any buffered events to the underlying stream.
+     *
+     * @throws IOException If the stream failed to flush.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Stops recording and closes the underlying stream.
+     *
+     * @throws IOException If the stream failed to close.
+     */
+    @Override
+    public void close() throws IOException {
+        world.removeEventListener(this);
+        out.close();
+    }
+
+    /**
+     * Writes an unsigned variable length integer using 7 bits per byte.
+     *
+     * @param out Where to write the value.
+     * @param value The value to write. Must not be negative.
+     * @throws IOException If the value could not be written.
+     */
+    public static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Writes an unsigned variable length long using 7 bits per byte.
+     *
+     * @param out Where to write the value.
+     * @param value The value to write. Must not be negative.
+     * @throws IOException If the value could not be written.
+     */
+    public static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            out.writeByte((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int)value);
+    }
+
+    /**
+     * Reads a value written by writeVarint().
+     *
+     * @param in Where to read the value from.
+     * @return The value read.
+     * @throws IOException If the value could not be read.
+     */
+    public static int readVarint(DataInput in) throws IOException {
+        return (int)readVarLong(in);
+    }
+
+    /**
+     * Reads a value written by writeVarLong().
+     *
+     * @param in Where to read the value from.
+     * @return The value read.
+     * @throws IOException If the value could not be read.
+     */
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Writes every value of every lane so spectators can build the same level or tuning.
+     *
+     * @param lanes The world's lanes.
+     * @throws IOException If the lanes could not be written.
+     */
+    private void writeLanes(LaneTable lanes) throws IOException {
+        writeVarint(out, lanes.getLaneCount());
+        for(int lane = 0; lane < lanes.getLaneCount(); lane++) {
+            out.writeInt(lanes.getRow(lane));
+            out.writeInt(lanes.getType(lane));
+            out.writeInt(lanes.isMovingLeft(lane) ? 1 : 0);
+            out.writeInt(lanes.getMoveDistance(lane));
+            out.writeInt(lanes.getMoveDelay(lane));
+            out.writeInt(lanes.getObjectCount(lane));
+            out.writeInt(lanes.getOffset(lane));
+            out.writeInt(lanes.getSpacing(lane));
+            out.writeInt(lanes.getMinWidth(lane));
+            out.writeInt(lanes.getMaxWidth(lane));
+            out.writeInt(lanes.getEntry(lane));
+        }
+    }
+
+    /**
+     * Writes an event with a single payload value.
+     *
+     * @param type The type of event.
+     * @param value The payload of the event.
+     */
+    private void writeEvent(int type, int value) {
+        try {
+            writeHeader(type);
+            writeVarint(out, value);
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    /**
+     * Writes the type and the ticks since the previous event.
+     *
+     * @param type The type of event.
+     * @throws IOException If the header could not be written.
+     */
+    private void writeHeader(int type) throws IOException {
+        long tick = world.getTickCount();
+        out.writeByte(type);
+        writeVarLong(out, tick - lastEventTick);
+        lastEventTick = tick;
+    }
+
+    /**
+     * Stops listening after a failed write so the game itself keeps running.
+     *
+     * @param e The failure that stopped recording.
+     */
+    private void stopRecording(IOException e) {
+        System.err.println("Spectator stream stopped: " + e.getMessage());
+        world.removeEventListener(this);
+    }
+}
@@ -0,0 +1,54 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * StartupBenchmark class:
+ * Launches the game the same way as Game.main() and reports how long it took from JVM start
+ * until the first frame was painted and until the game was interactive, then exits.
+ * Run it as a fresh process each time so the numbers reflect a cold boot. Because it exits on
+ * its own it is also used as the training run when creating the AppCDS archive.
+ */
+public class StartupBenchmark {
+    /**
+     * Longest time to wait for the game to become interactive.
+     */
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Launches the game, waits for it to become interactive, prints the timings, and exits.
+     *
+     * @param args The same arguments as Game.main().
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long mainNanos = System.nanoTime();
+        long uptimeAtMainMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        GamePanel gamePanel = Game.launch(args).join().getGamePanel();
+        while(gamePanel.getFirstInteractiveNanos() == 0 && System.nanoTime() - mainNanos < TIMEOUT_NANOS) {
+            Thread.sleep(1);
+        }
+        if(gamePanel.getFirstInteractiveNanos() == 0) {
+            System.err.println("Game did not become interactive within " + TimeUnit.NANOSECONDS.toSeconds(TIMEOUT_NANOS) + "s");
+            System.exit(1);
+        }
+
+        System.out.println("JVM start to main:        " + uptimeAtMainMillis + " ms");
+        System.out.println("JVM start to first frame: " + (uptimeAtMainMillis + toMillis(gamePanel.getFirstFrameNanos() - mainNanos)) + " ms");
+        System.out.println("JVM start to interactive: " + (uptimeAtMainMillis + toMillis(gamePanel.getFirstInteractiveNanos() - mainNanos)) + " ms");
+        System.exit(0);
+    }
+
+    /**
+     * Converts a duration to whole milliseconds.
+     *
+     * @param nanos Duration in ns.
+     * @return Duration in ms.
+     */
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
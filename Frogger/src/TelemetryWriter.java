@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * TelemetryWriter class:
+ * Collects telemetry records from any number of sessions and writes them to rotating CSV files
+ * on its own background thread. Records are published into a fixed-size lock-free ring buffer,
+ * so publishing never blocks and never does any I/O. When the disk falls behind and the buffer
+ * is full new records are dropped and counted instead of waiting, and the number dropped is
+ * written to the file once there is room again.
+ *
+ * Each line is: "timeMillis,session,tick,type,value,extra" where type is one of the record
+ * type names and the meaning of value and extra depends on the type.
+ */
+public class TelemetryWriter implements AutoCloseable {
+    /**
+     * Record of a frog dying. The value is the DeathCause ordinal.
+     */
+    public static final int DEATH = 0;
+    /**
+     * Record of a frog scoring. The value is the score after scoring.
+     */
+    public static final int SCORE = 1;
+    /**
+     * Record of the world being restarted.
+     */
+    public static final int RESTART = 2;
+    /**
+     * Record summarising a run of ticks. The value is the mean and the extra is the longest tick in ns.
+     */
+    public static final int TICKS = 3;
+    /**
+     * Names written to the file for each record type.
+     */
+    private static final String[] TYPE_NAMES = { "death", "score", "restart", "ticks" };
+    /**
+     * Most records written in one batch before the file is flushed.
+     */
+    private static final int BATCH_SIZE = 1024;
+    /**
+     * How long the writer thread sleeps when there is nothing to write in ns.
+     */
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    /**
+     * Directory the files are written to.
+     */
+    private final Path directory;
+    /**
+     * Size in bytes a file can reach before writing moves on to a new file.
+     */
+    private final long maxFileBytes;
+    /**
+     * Number of files kept before the oldest is deleted.
+     */
+    private final int maxFiles;
+    /**
+     * Used to name the files of this writer apart from earlier runs.
+     */
+    private final long startMillis;
+    /**
+     * Number of slots in the ring buffer minus one, used to find the slot of a sequence.
+     */
+    private final int mask;
+    /**
+     * The fields of the record in each slot.
+     */
+    private final long[] times, ticks, values, extras;
+    /**
+     * Session and type of the record in each slot.
+     */
+    private final int[] sessions, types;
+    /**
+     * One more than the sequence of the record last published into each slot,
+     * so the writer can tell when a claimed slot has been filled.
+     */
+    private final AtomicLongArray published;
+    /**
+     * Sequence of the next record to be claimed by a publisher.
+     */
+    private final AtomicLong tail;
+    /**
+     * Sequence of the next record to be written. Only changed by the writer thread.
+     */
+    private volatile long head;
+    /**
+     * Number of records dropped because the buffer was full.
+     */
+    private final AtomicLong droppedCount;
+    /**
+     * Number of dropped records already reported in the file.
+     */
+    private long reportedDropped;
+    /**
+     * The thread draining the buffer into files.
+     */
+    private final Thread writerThread;
+    /**
+     * Cleared when the writer is closed.
+     */
+    private volatile boolean running;
+    /**
+     * The files written so far that have not been deleted, oldest first.
+     */
+    private final Deque<Path> files;
+    /**
+     * The file currently being written, or null when a new one must be opened.
+     */
+    private Writer out;
+    /**
+     * Bytes written to the current file.
+     */
+    private long fileBytes;
+    /**
+     * Number used for the name of the next file.
+     */
+    private int nextFileNumber;
+
+    /**
+     * Creates the writer and starts its background thread.
+     *
+     * @param directory Directory to write the files to. Created if it does not exist.
+     * @param capacity Minimum number of records the buffer can hold, rounded up to a power of two.
+     * @param maxFileBytes Size in bytes a file can reach before moving on to a new file.
+     * @param maxFiles Number of files kept before the oldest is deleted.
+     * @throws IOException If the directory could not be created.
+     */
+    public TelemetryWriter(Path directory, int capacity, long maxFileBytes, int maxFiles) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        startMillis = System.currentTimeMillis();
+        int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        mask = slots - 1;
+        times = new long[slots];
+        ticks = new long[slots];
+        values = new long[slots];
+        extras = new long[slots];
+        sessions = new int[slots];
+        types = new int[slots];
+        published = new AtomicLongArray(slots);
+        tail = new AtomicLong();
+        droppedCount = new AtomicLong();
+        files = new ArrayDeque<>();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "frogger-telemetry");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Creates a writer with a 64k record buffer and ten files of up to 8 MB each.
+     *
+     * @param directory Directory to write the files to. Created if it does not exist.
+     * @throws IOException If the directory could not be created.
+     */
+    public TelemetryWriter(Path directory) throws IOException {
+        this(directory, 1 << 16, 8L << 20, 10);
+    }
+
+    /**
+     * Publishes a record without blocking. Safe to call from any number of threads.
+     *
+     * @param session Identifier of the session the record is about.
+     * @param type One of DEATH, SCORE, RESTART, or TICKS.
+     * @param tick The world's tick count when the record was made.
+     * @param value The first value of the record.
+     * @param extra The second value of the record.
+     * @return True if the record was published, or false if it was dropped because the buffer was full.
+     */
+    public boolean publish(int session, int type, long tick, long value, long extra) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if(sequence - head > mask || !running) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+        } while(!tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int)(sequence & mask);
+        times[slot] = System.currentTimeMillis();
+        sessions[slot] = session;
+        types[slot] = type;
+        ticks[slot] = tick;
+        values[slot] = value;
+        extras[slot] = extra;
+        published.lazySet(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Gets the number of records dropped because the buffer was full.
+     *
+     * @return Number of dropped records.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops accepting records, writes everything already published, and closes the file.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes batches of records until closed, sleeping while there is nothing to write.
+     * Once closed the remaining records are written before the file is closed.
+     */
+    private void writeLoop() {
+        while(true) {
+            boolean wasRunning = running;
+            int written = writeBatch();
+            if(written == 0) {
+                if(!wasRunning) break;
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        closeFile();
+    }
+
+    /**
+     * Writes up to BATCH_SIZE published records to the current file and flushes it.
+     * If the file fails the records in the batch are lost and a new file is tried next batch.
+     *
+     * @return Number of records taken from the buffer.
+     */
+    private int writeBatch() {
+        long sequence = head;
+        StringBuilder batch = new StringBuilder();
+        int count = 0;
+        while(count < BATCH_SIZE && published.get((int)(sequence & mask)) == sequence + 1) {
+            int slot = (int)(sequence & mask);
+            batch.append(times[slot]).append(',').append(sessions[slot]).append(',').append(ticks[slot])
+                    .append(',').append(TYPE_NAMES[types[slot]]).append(',').append(values[slot])
+                    .append(',').append(extras[slot]).append('\n');
+            sequence++;
+            count++;
+        }
+        head = sequence;
+
+        long dropped = droppedCount.get();
+        if(dropped != reportedDropped) {
+            batch.append(System.currentTimeMillis()).append(",-1,-1,dropped,").append(dropped - reportedDropped).append(",0\n");
+            reportedDropped = dropped;
+        }
+        if(batch.length() > 0) {
+            try {
+                if(out == null || fileBytes >= maxFileBytes) {
+                    rotateFile();
+                }
+                out.write(batch.toString());
+                out.flush();
+                fileBytes += batch.length();
+            } catch (IOException e) {
+                System.err.println("Failed to write telemetry: " + e.getMessage());
+                closeFile();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Closes the current file and opens the next one, deleting the oldest file when there are too many.
+     *
+     * @throws IOException If the new file could not be opened.
+     */
+    private void rotateFile() throws IOException {
+        closeFile();
+        Path path = directory.resolve("telemetry-" + startMillis + "-" + nextFileNumber++ + ".csv");
+        out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII);
+        fileBytes = 0;
+        files.add(path);
+        while(files.size() > maxFiles) {
+            Files.deleteIfExists(files.poll());
+        }
+    }
+
+    /**
+     * Closes the current file if there is one.
+     */
+    private void closeFile() {
+        if(out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close telemetry file: " + e.getMessage());
+        }
+        out = null;
+    }
+}
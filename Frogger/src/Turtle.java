@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.util.Random;
 
 /**
  * Frogger
@@ -8,14 +9,6 @@ import java.awt.*;
  * Represents a simple turtle that can have multiple turtles moving left or right.
  */
 public class Turtle extends MovingObject {
-    /**
-     * The distance to move during each update in pixels.
-     */
-    private static final int MOVE_DISTANCE = GamePanel.SEGMENT_HEIGHT;
-    /**
-     * The time in ms to delay between moves.
-     */
-    private static final int MOVE_DELAY = 1000;
     /**
      * The number of segments. Used to determine how many turtles are drawn.
      */
@@ -26,18 +19,18 @@ public class Turtle extends MovingObject {
     private final Color outlineColour = new Color(30, 78, 18);
 
     /**
-     * Initialises a turtle to move in the defined direction. Turtles are safe to travel on.
+     * Initialises a turtle to move in the direction defined by its lane. Turtles are safe to travel on.
      *
+     * @param lanes The level the turtle's lane is defined in.
+     * @param lane Index of the lane that defines the row, direction, speed, and widths.
      * @param offsetX Position to offset the X coordinate from default spawning.
-     * @param yRow The row to set as a vertical position.
      * @param unitWidth Number of segments. Used to determine the length.
-     * @param isMovingLeft When true the car will move left, otherwise it will move right.
+     * @param random Random source used when resetting.
      */
-    public Turtle(int offsetX, int yRow, int unitWidth, boolean isMovingLeft) {
-        super(new Position(offsetX-unitWidth*GamePanel.SEGMENT_HEIGHT,
-                        yRow*GamePanel.SEGMENT_HEIGHT+(GamePanel.SEGMENT_HEIGHT-MovingObject.OBJECT_HEIGHT)/2),
-                unitWidth * GamePanel.SEGMENT_HEIGHT, new Color(64, 146, 35),
-                isMovingLeft, MOVE_DISTANCE, MOVE_DELAY);
+    public Turtle(LaneTable lanes, int lane, int offsetX, int unitWidth, Random random) {
+        super(lanes, lane, new Position(offsetX-unitWidth*GamePanel.SEGMENT_HEIGHT,
+                        lanes.getRow(lane)*GamePanel.SEGMENT_HEIGHT+(GamePanel.SEGMENT_HEIGHT-MovingObject.OBJECT_HEIGHT)/2),
+                unitWidth * GamePanel.SEGMENT_HEIGHT, new Color(64, 146, 35), random);
         this.unitWidth = unitWidth;
         isSafe = true;
     }
@@ -73,27 +66,8 @@ public class Turtle extends MovingObject {
     @Override
     public void reset() {
         super.reset();
-        unitWidth = getRandomSegmentLength();
+        unitWidth = lanes.getRandomWidth(lane, random);
         width = unitWidth * GamePanel.SEGMENT_HEIGHT;
-        position.x = moveDirection.equals(Position.RIGHT) ? -(getMaxLength() * GamePanel.SEGMENT_HEIGHT)
-                :(GamePanel.PANEL_WIDTH/GamePanel.SEGMENT_HEIGHT+1)*(GamePanel.SEGMENT_HEIGHT);
-    }
-
-    /**
-     * Gets a valid random number of segments for a turtle.
-     *
-     * @return A random number between 1 and 3.
-     */
-    public static int getRandomSegmentLength() {
-        return (int)(Math.random()*3+1);
-    }
-
-    /**
-     * Gets the maximum number of segments.
-     *
-     * @return The maximum length of a turtle.
-     */
-    public static int getMaxLength() {
-        return 3;
+        position.x = getResetPositionX();
     }
 }
@@ -0,0 +1,784 @@
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Frogger
+ * Author: Peter Mitchell (2021)
+ *
+ * World class:
+ * Holds the complete game state (background, moving objects, and player) and steps it
+ * forward with tick(). Has no dependency on a window or a timer so it can be driven
+ * by the GamePanel, a server, or any other headless tool.
+ *
+ * The lanes come either from a LaneTable, where every lane is spawned up front, or from a
+ * MappedLevel, or from a LaneRing for endless mode, where lanes scroll down as the frog climbs
+ * and new ones are generated above. A MappedLevel also scrolls down as the frog climbs, from
+ * its bottom lane up to its top where the lilies are. Only the lanes on screen and within a
+ * radius of rows above and below it are materialized, and lanes are dropped again once they
+ * are further off screen than that, so a lane is never dropped or recreated while it is visible.
+ */
+public class World {
+    /**
+     * The background elements that are all static.
+     */
+    private Background background;
+    /**
+     * A list of all the objects that are moving either left or right as obstacles
+     */
+    private List<MovingObject> objectList;
+    /**
+     * The player object that controls its own lives, score, and frogs.
+     */
+    private Player player;
+    /**
+     * Updates the moving objects lane by lane, in parallel when there are enough lanes.
+     */
+    private LaneUpdater laneUpdater;
+    /**
+     * Generates the seed for each new layout of moving objects so the game is repeatable from its seed.
+     */
+    private Random seedGenerator;
+    /**
+     * Random source used while spawning the current layout of moving objects.
+     */
+    private Random layoutRandom;
+    /**
+     * Input received from other threads waiting to be applied at the start of the next tick.
+     * Each entry is the key code shifted left by one with the pressed state in the lowest bit.
+     */
+    private final Queue<Integer> queuedInput;
+    /**
+     * Number of ticks that have been run since the world was created.
+     */
+    private long tickCount;
+    /**
+     * The world's own copy of the level defining every lane of moving objects, or null when lanes
+     * do not come from a LaneTable. Retuning it never changes any other world on the same level.
+     */
+    private final LaneTable lanes;
+    /**
+     * The mapped level lanes are materialized from, or null when every lane comes from the LaneTable.
+     */
+    private final MappedLevel mappedLevel;
+    /**
+     * Number of rows above and below the screen that lanes are materialized for from the mapped level.
+     */
+    private final int materializeRadius;
+    /**
+     * The objects of each materialized lane from the mapped level, from windowStart up to windowEnd.
+     */
+    private final List<MovingObject[]> windowLanes;
+    /**
+     * The lane values of each materialized lane, with its row changed to the row on screen.
+     */
+    private final List<LaneTable> windowTables;
+    /**
+     * The row of the mapped level drawn at the top of the screen. Starts with the level's bottom
+     * lane just above the spawn row and goes down to 0 as the frog climbs.
+     */
+    private int cameraRow;
+    /**
+     * The background of a mapped level, or null when not using a mapped level.
+     */
+    private final MappedBackground mappedBackground;
+    /**
+     * The range of mapped level lanes that are currently materialized.
+     */
+    private long windowStart, windowEnd;
+    /**
+     * The endless lanes that scroll with the frog, or null when not in endless mode.
+     */
+    private final LaneRing laneRing;
+    /**
+     * Seed of the current layout, combined with a lane's index to seed it when materialized.
+     */
+    private long layoutSeed;
+    /**
+     * The seed the world was created with.
+     */
+    private final long seed;
+    /**
+     * Changed every time the objects in the object list are replaced or the rows of the
+     * background change, from a restart, materializing lanes, or scrolling endless lanes.
+     */
+    private long layoutVersion;
+    /**
+     * Listeners notified about input and outcome events.
+     */
+    private final List<GameEventListener> eventListeners;
+    /**
+     * Lane tuning queued from another thread to be copied into the lanes at the start of the next tick, or null.
+     */
+    private final AtomicReference<LaneTable> queuedTuning;
+    /**
+     * Run whenever input or tuning is queued, or null.
+     */
+    private volatile Runnable queueListener;
+
+    /**
+     * Creates all the elements ready to start the game on the default level.
+     *
+     * @param seed The seed that all randomised layouts and resets are derived from.
+     */
+    public World(long seed) {
+        this(seed, LaneTable.getDefault());
+    }
+
+    /**
+     * Creates all the elements ready to start the game.
+     *
+     * @param seed The seed that all randomised layouts and resets are derived from.
+     * @param lanes The level defining every lane of moving objects. The world keeps its own copy.
+     */
+    public World(long seed, LaneTable lanes) {
+        this(seed, lanes, null, 0, null);
+    }
+
+    /**
+     * Creates all the elements ready to start an endless game, where new lanes are generated
+     * ahead of the frog and discarded behind it.
+     *
+     * @param seed The seed that all randomised layouts and resets are derived from.
+     * @param laneRing The ring the endless lanes are generated into.
+     */
+    public World(long seed, LaneRing laneRing) {
+        this(seed, null, null, 0, laneRing);
+    }
+
+    /**
+     * Creates all the elements ready to start the game, materializing lanes from a mapped level
+     * only when they are near the frog.
+     *
+     * @param seed The seed that all randomised layouts and resets are derived from.
+     * @param mappedLevel The level to materialize lanes from.
+     * @param materializeRadius Number of rows above and below the screen to materialize lanes for. At least 1.
+     */
+    public World(long seed, MappedLevel mappedLevel, int materializeRadius) {
+        this(seed, null, mappedLevel, Math.max(1, materializeRadius), null);
+    }
+
+    /**
+     * Creates all the elements ready to start the game with lanes from one of the sources.
+     *
+     * @param seed The seed that all randomised layouts and resets are derived from.
+     * @param lanes The level defining every lane, or null to use another source.
+     * @param mappedLevel The level to materialize lanes from, or null to use another source.
+     * @param materializeRadius Number of rows above and below the screen to materialize lanes for.
+     * @param laneRing The ring to generate endless lanes into, or null to use another source.
+     */
+    private World(long seed, LaneTable lanes, MappedLevel mappedLevel, int materializeRadius, LaneRing laneRing) {
+        this.seed = seed;
+        this.lanes = lanes != null ? lanes.copy() : null;
+        this.mappedLevel = mappedLevel;
+        this.materializeRadius = materializeRadius;
+        this.laneRing = laneRing;
+        windowLanes = new ArrayList<>();
+        windowTables = new ArrayList<>();
+        eventListeners = new CopyOnWriteArrayList<>();
+        mappedBackground = mappedLevel != null ? new MappedBackground() : null;
+        if(laneRing != null) {
+            background = new EndlessBackground(laneRing);
+        } else {
+            background = mappedBackground != null ? mappedBackground : new Background();
+        }
+        objectList = new ArrayList<>();
+        laneUpdater = new LaneUpdater();
+        seedGenerator = new Random(seed);
+        queuedInput = new ConcurrentLinkedQueue<>();
+        queuedTuning = new AtomicReference<>();
+        initMovingObjects();
+        player = new Player(background, objectList);
+        player.setEventListener(new EventDispatcher());
+    }
+
+    /**
+     * Applies any queued input, then if the game hasn't ended the game elements will be updated.
+     * Initially the player is updated, then all the objects lane by lane
+     * (possibly across several threads). If the player is inside one of
+     * the objects attached to them it will be managed in the postUpdate()
+     * call to player once every lane has finished.
+     *
+     * @param deltaTime Time since last update in ms.
+     */
+    public void tick(int deltaTime) {
+        boolean isRecording = FlightEvents.isTickEnabled();
+        FlightEvents.Tick tickEvent = null;
+        long start = eventListeners.isEmpty() && !isRecording ? 0 : System.nanoTime();
+        if(isRecording) {
+            tickEvent = new FlightEvents.Tick();
+            tickEvent.begin();
+        }
+        if(queuedTuning.get() != null) {
+            applyLaneTuning(queuedTuning.getAndSet(null));
+        }
+        Integer input;
+        while((input = queuedInput.poll()) != null) {
+            handleInput(input >> 1, (input & 1) == 1);
+        }
+        if (!player.isGameEnded()) {
+            long phaseStart = 0;
+            if(isRecording) {
+                phaseStart = System.nanoTime();
+                tickEvent.inputNanos = phaseStart - start;
+            }
+            player.update(deltaTime);
+            if(isRecording) {
+                tickEvent.playerUpdateNanos = System.nanoTime() - phaseStart;
+                phaseStart += tickEvent.playerUpdateNanos;
+            }
+            laneUpdater.update(deltaTime);
+            if(!eventListeners.isEmpty() || FlightEvents.isObstacleResetEnabled()) {
+                notifyObstacleResets();
+            }
+            if(isRecording) {
+                tickEvent.laneUpdateNanos = System.nanoTime() - phaseStart;
+                phaseStart += tickEvent.laneUpdateNanos;
+            }
+            player.postUpdate();
+            if(laneRing != null) {
+                scrollEndlessLanes();
+            } else if(mappedLevel != null) {
+                scrollMappedLevel();
+            }
+            if(isRecording) {
+                tickEvent.postUpdateNanos = System.nanoTime() - phaseStart;
+            }
+        }
+        if(isRecording) {
+            tickEvent.tickNumber = tickCount;
+            tickEvent.objectCount = objectList.size();
+            tickEvent.commit();
+        }
+        tickCount++;
+        if(start != 0) {
+            long tickNanos = System.nanoTime() - start;
+            for(GameEventListener listener : eventListeners) {
+                listener.onTickCompleted(tickNanos);
+            }
+        }
+    }
+
+    /**
+     * Draws the background elements, all the moving objects, and the player elements.
+     *
+     * @param g Reference to the Graphics object for rendering.
+     */
+    public void paint(Graphics g) {
+        background.paint(g);
+        objectList.forEach(obj -> obj.paint(g));
+        player.paint(g);
+    }
+
+    /**
+     * Resets the player and moving objects back to defaults.
+     */
+    public void restart() {
+        player.reset();
+        initMovingObjects();
+        for(GameEventListener listener : eventListeners) {
+            listener.onRestart();
+        }
+    }
+
+    /**
+     * Checks for R to restart, and otherwise passes off to the player for player input.
+     * Must be called from the thread that calls tick().
+     *
+     * @param keyCode The key that was pressed or released.
+     * @param isPressed True indicates the key is pressed, false indicates it has been released.
+     */
+    public void handleInput(int keyCode, boolean isPressed) {
+        if(!eventListeners.isEmpty()) {
+            for(GameEventListener listener : eventListeners) {
+                listener.onInput(keyCode, isPressed);
+            }
+        }
+        if(keyCode == KeyEvent.VK_R) {
+            restart();
+        } else {
+            player.handleInput(keyCode, isPressed);
+        }
+    }
+
+    /**
+     * Queues input from any thread to be applied at the start of the next tick().
+     *
+     * @param keyCode The key that was pressed or released.
+     * @param isPressed True indicates the key is pressed, false indicates it has been released.
+     */
+    public void queueInput(int keyCode, boolean isPressed) {
+        queuedInput.add(keyCode << 1 | (isPressed ? 1 : 0));
+        Runnable listener = queueListener;
+        if(listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Sets what to run whenever input or lane tuning is queued from any thread, so a thread
+     * that sleeps between ticks can be woken to apply it.
+     *
+     * @param queueListener Run after each queued input or tuning, or null for nothing.
+     */
+    public void setQueueListener(Runnable queueListener) {
+        this.queueListener = queueListener;
+    }
+
+    /**
+     * Queues new tuning for the lanes from any thread, to be copied into the world's LaneTable at
+     * the start of the next tick so every lane changes between the same two ticks. If tuning is
+     * queued again before then, only the latest is applied.
+     *
+     * @param tuning A table with the same lanes as the world's, differing only in their tuning.
+     * @throws IllegalStateException If the world's lanes do not come from a LaneTable.
+     * @throws IllegalArgumentException If the lanes differ by more than their tuning.
+     */
+    public void queueLaneTuning(LaneTable tuning) {
+        if(lanes == null) {
+            throw new IllegalStateException("Only lanes from a LaneTable can be retuned");
+        }
+        if(!lanes.hasSameLanes(tuning)) {
+            throw new IllegalArgumentException("The lanes differ by more than their tuning");
+        }
+        queuedTuning.set(tuning);
+        Runnable listener = queueListener;
+        if(listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Checks if any input is waiting to be applied on the next tick.
+     *
+     * @return True if there is queued input.
+     */
+    public boolean hasQueuedInput() {
+        return !queuedInput.isEmpty();
+    }
+
+    /**
+     * Checks if lane tuning is waiting to be applied on the next tick.
+     *
+     * @return True if there is queued tuning.
+     */
+    public boolean hasQueuedTuning() {
+        return queuedTuning.get() != null;
+    }
+
+    /**
+     * The game ends when the player has run out of lives and they do not have a current frog.
+     *
+     * @return True if the game has ended.
+     */
+    public boolean isGameEnded() {
+        return player.isGameEnded();
+    }
+
+    /**
+     * Gets the player.
+     *
+     * @return The player object that controls its own lives, score, and frogs.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the background.
+     *
+     * @return The background elements that are all static.
+     */
+    public Background getBackground() {
+        return background;
+    }
+
+    /**
+     * Gets all the moving objects.
+     *
+     * @return A reference to the list of moving objects.
+     */
+    public List<MovingObject> getObjectList() {
+        return objectList;
+    }
+
+    /**
+     * Adds a listener to be notified about input and outcome events during ticks.
+     *
+     * @param listener The listener to add.
+     */
+    public void addEventListener(GameEventListener listener) {
+        eventListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener that was previously added.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeEventListener(GameEventListener listener) {
+        eventListeners.remove(listener);
+    }
+
+    /**
+     * Sets the pool the lanes are updated on when there are enough of them to spread across threads,
+     * instead of the common pool. Must be called from the thread that calls tick().
+     *
+     * @param pool The pool to run lane updates on.
+     */
+    public void setLaneUpdatePool(ForkJoinPool pool) {
+        laneUpdater = new LaneUpdater(pool);
+        laneUpdater.setObjects(objectList);
+    }
+
+    /**
+     * Gets the world's own copy of the level it was created with, including any tuning applied since.
+     *
+     * @return The level defining every lane of moving objects, or null when using a mapped level or endless lanes.
+     */
+    public LaneTable getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Checks if the world was created for an endless game.
+     *
+     * @return True if the lanes are generated endlessly ahead of the frog.
+     */
+    public boolean isEndless() {
+        return laneRing != null;
+    }
+
+    /**
+     * Gets the seed the world was created with.
+     *
+     * @return The seed that all randomised layouts and resets are derived from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of ticks that have been run.
+     *
+     * @return Number of ticks since the world was created.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the layout version, which changes whenever the object list is replaced or the rows of
+     * the background change. Between changes the objects in the list only move or reset.
+     *
+     * @return The current layout version.
+     */
+    public long getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    /**
+     * Gets how far a mapped level has scrolled.
+     *
+     * @return The row of the mapped level drawn at the top of the screen, or 0 when not using a mapped level.
+     */
+    public int getCameraRow() {
+        return cameraRow;
+    }
+
+    /**
+     * Notifies listeners about every object that was reset during this tick. Done after all
+     * lanes have finished so the order is the same no matter how the lanes were split across threads.
+     */
+    private void notifyObstacleResets() {
+        for(int i = 0; i < objectList.size(); i++) {
+            MovingObject object = objectList.get(i);
+            if(object.wasReset()) {
+                for(GameEventListener listener : eventListeners) {
+                    listener.onObstacleReset(i, object.getWidth());
+                }
+                if(FlightEvents.isObstacleResetEnabled()) {
+                    FlightEvents.ObstacleReset resetEvent = new FlightEvents.ObstacleReset();
+                    resetEvent.objectIndex = i;
+                    resetEvent.lane = object.getLane();
+                    resetEvent.width = object.getWidth();
+                    resetEvent.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies new tuning into the lanes straight away, then tells the listeners. The objects in any
+     * lane whose count, offset, or spacing changed are replaced by a new set at their spawn
+     * positions, and the movement timer of the objects in any other lane whose delay changed is
+     * restarted. Must only be called from the thread that ticks the world, between ticks; other
+     * threads use queueLaneTuning().
+     *
+     * @param tuning A table with the same lanes as the world's.
+     * @throws IllegalStateException If the world's lanes do not come from a LaneTable.
+     * @throws IllegalArgumentException If the lanes differ by more than their tuning.
+     */
+    public void applyLaneTuning(LaneTable tuning) {
+        if(lanes == null) {
+            throw new IllegalStateException("Only lanes from a LaneTable can be retuned");
+        }
+        int laneCount = lanes.getLaneCount();
+        int[] previousDelays = new int[laneCount];
+        boolean[] isRespaced = new boolean[laneCount];
+        boolean hasRespacedLane = false;
+        for(int lane = 0; lane < laneCount; lane++) {
+            previousDelays[lane] = lanes.getMoveDelay(lane);
+            isRespaced[lane] = tuning.getObjectCount(lane) != lanes.getObjectCount(lane)
+                    || tuning.getOffset(lane) != lanes.getOffset(lane) || tuning.getSpacing(lane) != lanes.getSpacing(lane);
+            hasRespacedLane |= isRespaced[lane];
+        }
+        lanes.copyTuning(tuning);
+        if(hasRespacedLane) {
+            respawnLanes(isRespaced);
+        }
+        for(int i = 0; i < objectList.size(); i++) {
+            MovingObject object = objectList.get(i);
+            if(lanes.getMoveDelay(object.getLane()) != previousDelays[object.getLane()]) {
+                object.updateMoveDelay();
+            }
+        }
+        for(GameEventListener listener : eventListeners) {
+            listener.onLanesRetuned(lanes);
+        }
+    }
+
+    /**
+     * Replaces the objects of some lanes with a new set at their spawn positions, keeping the
+     * objects of every other lane where they are. The object list stays in lane order.
+     *
+     * @param isRespaced True for each lane whose objects are replaced.
+     */
+    private void respawnLanes(boolean[] isRespaced) {
+        List<MovingObject> previousObjects = new ArrayList<>(objectList);
+        objectList.clear();
+        int next = 0;
+        for(int lane = 0; lane < isRespaced.length; lane++) {
+            for(; next < previousObjects.size() && previousObjects.get(next).getLane() == lane; next++) {
+                if(!isRespaced[lane]) {
+                    objectList.add(previousObjects.get(next));
+                }
+            }
+            if(isRespaced[lane]) {
+                for(int i = 0; i < lanes.getObjectCount(lane); i++) {
+                    objectList.add(createMovingObject(lanes, lane, i, layoutRandom));
+                }
+            }
+        }
+        laneUpdater.setObjects(objectList);
+        layoutVersion++;
+    }
+
+    /**
+     * Clears all the moving objects and spawns new sets of the
+     * logs, cars, and turtles for every lane in the level.
+     */
+    private void initMovingObjects() {
+        objectList.clear();
+        if(laneRing != null) {
+            laneRing.reset(seedGenerator.nextLong());
+            laneRing.addObjects(objectList);
+        } else if(mappedLevel != null) {
+            layoutSeed = seedGenerator.nextLong();
+            windowLanes.clear();
+            windowTables.clear();
+            windowStart = windowEnd = 0;
+            cameraRow = getStartCameraRow();
+            materializeLanes();
+        } else {
+            layoutRandom = new Random(seedGenerator.nextLong());
+            for(int lane = 0; lane < lanes.getLaneCount(); lane++) {
+                for(int i = 0; i < lanes.getObjectCount(lane); i++) {
+                    objectList.add(createMovingObject(lanes, lane, i, layoutRandom));
+                }
+            }
+        }
+        laneUpdater.setObjects(objectList);
+        layoutVersion++;
+    }
+
+    /**
+     * Scrolls the endless lanes down a row once the frog has climbed to the scroll row,
+     * awarding score for the row gained.
+     */
+    private void scrollEndlessLanes() {
+        Frog frog = player.getCurrentFrog();
+        if(frog != null && frog.position.y <= LaneRing.SCROLL_ROW * GamePanel.SEGMENT_HEIGHT) {
+            laneRing.scroll(frog);
+            player.addScore(LaneRing.SCORE_PER_ROW);
+            objectList.clear();
+            laneRing.addObjects(objectList);
+            laneUpdater.setObjects(objectList);
+            layoutVersion++;
+        }
+    }
+
+    /**
+     * Scrolls a mapped level down a row once the frog has climbed to the scroll row, until the
+     * top of the level is on screen. The lanes and frog move down with it, lanes that are now
+     * far enough above the screen are materialized, and lanes far enough below it are dropped.
+     */
+    private void scrollMappedLevel() {
+        Frog frog = player.getCurrentFrog();
+        if(frog == null || cameraRow == 0 || frog.position.y > LaneRing.SCROLL_ROW * GamePanel.SEGMENT_HEIGHT) {
+            return;
+        }
+        cameraRow--;
+        frog.position.y += GamePanel.SEGMENT_HEIGHT;
+        for(int i = 0; i < windowLanes.size(); i++) {
+            LaneTable laneTable = windowTables.get(i);
+            laneTable.setRow(0, laneTable.getRow(0) + 1);
+            for(MovingObject object : windowLanes.get(i)) {
+                object.position.y += GamePanel.SEGMENT_HEIGHT;
+            }
+        }
+        materializeLanes();
+    }
+
+    /**
+     * Gets the camera row that puts the bottom lane of the mapped level on the row above the spawn row.
+     *
+     * @return Row of the mapped level to draw at the top of the screen when a game starts.
+     */
+    private int getStartCameraRow() {
+        try {
+            long laneCount = mappedLevel.getLaneCount();
+            int bottomRow = laneCount == 0 ? 0 : mappedLevel.getRow(laneCount - 1);
+            return Math.max(0, bottomRow + 1 - Player.SPAWN_ROW);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Materializes the mapped level lanes on screen and within the radius above and below it,
+     * drops any lanes that are now outside that, and updates the terrain of every row on screen.
+     * Lanes that stay inside keep their objects. A newly materialized lane starts from its spawn
+     * positions and is seeded from its index, so it is the same no matter when it is reached.
+     * As lanes are only dropped once they are more than the radius off screen, a lane on screen
+     * is never recreated.
+     */
+    private void materializeLanes() {
+        try {
+            long start = mappedLevel.findFirstLane(cameraRow - materializeRadius);
+            long end = mappedLevel.findFirstLane(cameraRow + Player.SPAWN_ROW + materializeRadius + 1);
+            if(start != windowStart || end != windowEnd) {
+                List<MovingObject[]> lanesInWindow = new ArrayList<>((int)(end - start));
+                List<LaneTable> tablesInWindow = new ArrayList<>((int)(end - start));
+                for(long lane = start; lane < end; lane++) {
+                    if(lane >= windowStart && lane < windowEnd) {
+                        lanesInWindow.add(windowLanes.get((int)(lane - windowStart)));
+                        tablesInWindow.add(windowTables.get((int)(lane - windowStart)));
+                    } else {
+                        LaneTable laneTable = mappedLevel.readLanes(lane, lane + 1);
+                        laneTable.setRow(0, laneTable.getRow(0) - cameraRow);
+                        Random random = new Random(layoutSeed ^ (lane * 0x9E3779B97F4A7C15L));
+                        MovingObject[] laneObjects = new MovingObject[laneTable.getObjectCount(0)];
+                        for(int i = 0; i < laneObjects.length; i++) {
+                            laneObjects[i] = createMovingObject(laneTable, 0, i, random);
+                        }
+                        lanesInWindow.add(laneObjects);
+                        tablesInWindow.add(laneTable);
+                    }
+                }
+                windowLanes.clear();
+                windowLanes.addAll(lanesInWindow);
+                windowTables.clear();
+                windowTables.addAll(tablesInWindow);
+                windowStart = start;
+                windowEnd = end;
+
+                objectList.clear();
+                for(MovingObject[] laneObjects : windowLanes) {
+                    objectList.addAll(Arrays.asList(laneObjects));
+                }
+                laneUpdater.setObjects(objectList);
+            }
+            updateMappedTerrain();
+            layoutVersion++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sets the terrain of every row on screen from the materialized lanes on it. Rows without
+     * lanes are grass, and row 0 of the level is the end zone.
+     */
+    private void updateMappedTerrain() {
+        for(int row = 0; row <= Player.SPAWN_ROW; row++) {
+            mappedBackground.setTerrain(row, row + cameraRow == 0 ? LaneRing.WATER : LaneRing.GRASS);
+        }
+        for(LaneTable laneTable : windowTables) {
+            int row = laneTable.getRow(0);
+            if(row >= 0 && row <= Player.SPAWN_ROW) {
+                mappedBackground.setTerrain(row, laneTable.getType(0) == LaneTable.CAR ? LaneRing.ROAD : LaneRing.WATER);
+            }
+        }
+        mappedBackground.setEndZoneVisible(cameraRow == 0);
+    }
+
+    /**
+     * Creates one of the objects for a lane with a random width from the lane's range.
+     *
+     * @param table The level the lane is defined in.
+     * @param lane Index of the lane in the level.
+     * @param objectIndex Which of the lane's objects to create, from 0.
+     * @param random Random source for the width and to seed the object's own random source.
+     * @return The new moving object.
+     */
+    static MovingObject createMovingObject(LaneTable table, int lane, int objectIndex, Random random) {
+        int offsetX = table.getSpawnOffsetX(lane, objectIndex);
+        int unitWidth = table.getRandomWidth(lane, random);
+        Random objectRandom = new Random(random.nextLong());
+        switch(table.getType(lane)) {
+            case LaneTable.LOG:
+                return new Log(table, lane, offsetX, unitWidth, objectRandom);
+            case LaneTable.TURTLE:
+                return new Turtle(table, lane, offsetX, unitWidth, objectRandom);
+            default:
+                return new Car(table, lane, offsetX, unitWidth, objectRandom);
+        }
+    }
+
+    /**
+     * Forwards the player's events to every listener added to the world.
+     */
+    private class EventDispatcher implements GameEventListener {
+        @Override
+        public void onFrogAttached(int objectIndex) {
+            for(GameEventListener listener : eventListeners) {
+                listener.onFrogAttached(objectIndex);
+            }
+        }
+
+        @Override
+        public void onFrogDeath(DeathCause cause) {
+            for(GameEventListener listener : eventListeners) {
+                listener.onFrogDeath(cause);
+            }
+        }
+
+        @Override
+        public void onFrogScored(int score) {
+            for(GameEventListener listener : eventListeners) {
+                listener.onFrogScored(score);
+            }
+        }
+    }
+}